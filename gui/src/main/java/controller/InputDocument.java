@@ -7,6 +7,7 @@ import javax.swing.text.DefaultStyledDocument;
 
 import controller.workers.HighlighterWorker;
 import controller.workers.InterpreterWorker;
+import function.executor.ExecutionContext;
 import interpreter.Interpreter;
 import model.Highlighter;
 
@@ -18,7 +19,9 @@ public class InputDocument extends DefaultStyledDocument implements OnCodeHighli
     private final OnProgramInterpretedListener programInterpretedListener;
     private SwingWorker<Interpreter.Output, Void> interpreterWorker;
     private SwingWorker<Void, HighlighterWorker.Attributes> highlighterWorker;
-    private Interpreter interpreter;
+    // Interpreter is shared by all runs, only context of the last run is kept to cancel it.
+    private final Interpreter interpreter = new Interpreter();
+    private ExecutionContext context;
 
     public InputDocument(Highlighter highlighter, OnProgramInterpretedListener listener) {
         this.highlighter = highlighter;
@@ -44,14 +47,14 @@ public class InputDocument extends DefaultStyledDocument implements OnCodeHighli
             interpreterWorker.cancel(true);
         }
 
-        if (interpreter != null) {
-            interpreter.stop();
+        if (context != null) {
+            context.cancel();
         }
 
-        interpreter = new Interpreter();
+        context = new ExecutionContext();
         programInterpretedListener.onStartInterpretation();
 
-        interpreterWorker = new InterpreterWorker(interpreter, program, programInterpretedListener);
+        interpreterWorker = new InterpreterWorker(interpreter, context, program, programInterpretedListener);
         interpreterWorker.execute();
     }
 
@@ -1,6 +1,7 @@
 package controller.workers;
 
 import controller.OnProgramInterpretedListener;
+import function.executor.ExecutionContext;
 import interpreter.Interpreter;
 
 import javax.swing.*;
@@ -11,23 +12,24 @@ public class InterpreterWorker extends SwingWorker<Interpreter.Output, Void> {
     private final String program;
 
     private final Interpreter interpreter;
+    private final ExecutionContext context;
     private final OnProgramInterpretedListener listener;
 
     public InterpreterWorker(
             Interpreter interpreter,
+            ExecutionContext context,
             String program,
             OnProgramInterpretedListener listener
     ) {
         this.interpreter = interpreter;
+        this.context = context;
         this.program = program;
         this.listener = listener;
     }
 
     @Override
     public Interpreter.Output doInBackground() {
-        Interpreter.Output output = interpreter.interpret(program);
-        interpreter.stop();
-        return output;
+        return interpreter.interpret(program, context);
     }
 
     @Override
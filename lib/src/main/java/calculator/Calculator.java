@@ -1,6 +1,7 @@
 package calculator;
 
-import formatter.Formatter;
+import lexer.Lexer;
+import lexer.Token;
 import provider.NumbersProvider;
 import tools.Constants;
 import tools.Validator;
@@ -11,84 +12,202 @@ import java.util.*;
 // but with some fixes and negative numbers supporting.
 public class Calculator {
 
+    // Batch evaluation processes elements by chunks of this size.
+    public static final int CHUNK_SIZE = VectorEvaluator.CHUNK_SIZE;
+
+    // Programs are immutable, so by default all calculators share the same cache.
+    private static final ExpressionCache SHARED_CACHE = new ExpressionCache();
+
+    private final ExpressionCache cache;
+
+    // Stack and values of variables for evaluation of programs.
+    // Calculator is shared between threads of executors, so each thread reuses its own arrays.
+    private final ThreadLocal<double[]> stacks = ThreadLocal.withInitial(() -> new double[16]);
+    private final ThreadLocal<double[]> values = ThreadLocal.withInitial(() -> new double[16]);
+
+    // Scratch columns for batch evaluation, kept for each thread.
+    private final ThreadLocal<VectorEvaluator> vectorEvaluators = ThreadLocal.withInitial(VectorEvaluator::new);
+
+    public Calculator() {
+        this(SHARED_CACHE);
+    }
+
+    public Calculator(ExpressionCache cache) {
+        this.cache = cache;
+    }
+
     // Calc arithmetic expression.
     // first parameter is expression, second is variables and numbers assigned to these variables.
     public Double calc(String expression, Map<String, String> variables) {
-        String[] tokens = Formatter.getStringWithSpaces(expression).split(" +");
+        RpnProgram program = parse(expression);
 
-        if (!variables.isEmpty()) {
-            for (int i = 0; i < tokens.length; i++) {
-                if (variables.containsKey(tokens[i])) {
-                    tokens[i] = variables.get(tokens[i]);
-                }
-            }
+        if (program == null) {
+            return null;
         }
 
-        List<String> rpnTokens = convert(tokens);
+        double[] values = getValues(program);
+
+        for (int i = 0; i < program.variables.length; i++) {
+            Double value = Validator.parseNumber(variables.get(program.variables[i]));
+            if (value == null) {
+                return null;
+            }
+            values[i] = value;
+        }
 
-        return rpnTokens != null ? calc(rpnTokens) : null;
+        return program.evaluate(values, getStack(program));
     }
 
     // Calc arithmetic expression.
     // first parameter is expression, second is provider of numbers for variables from expression.
     public Double calc(String expression, NumbersProvider numbersProvider) {
-        String[] tokens = Formatter.getStringWithSpaces(expression.trim()).split(" +");
+        RpnProgram program = parse(expression.trim());
 
-        for (int i = 0; i < tokens.length; i++) {
-            String valueOfVariable = numbersProvider.getNumberByName(tokens[i]);
-            if (valueOfVariable != null) {
-                tokens[i] = valueOfVariable;
+        if (program == null) {
+            return null;
+        }
+
+        double[] values = getValues(program);
+
+        for (int i = 0; i < program.variables.length; i++) {
+            int slot = numbersProvider.getSlot(program.variables[i]);
+            if (slot < 0) {
+                return null;
             }
+            values[i] = numbersProvider.getNumber(slot);
+        }
+
+        return program.evaluate(values, getStack(program));
+    }
+
+    // Evaluate program with one variable for every element of input[from, to) and write results to output[from, to).
+    // Each operation of program is applied to the whole chunk of elements before the next one,
+    // so cost of dispatching of operations is shared between elements of chunk.
+    // Output could be the same array as input.
+    public void evaluate(RpnProgram program, double[] input, double[] output, int from, int to) {
+        if (program.variables.length > 1) {
+            throw new IllegalArgumentException("Batch evaluation supports programs with one variable only");
         }
+        vectorEvaluators.get().evaluate(program, input, output, from, to);
+    }
 
-        List<String> rpnTokens = convert(tokens);
+    // Compile lambda expression to the tree, which could be evaluated for many arguments without parsing.
+    // Each name from `argumentNames` is bound to the slot with the same index.
+    // Returns null if expression is invalid.
+    public Expression compile(String expression, String[] argumentNames) {
+        RpnProgram program = parse(expression.trim());
+        return program != null ? build(program, argumentNames) : null;
+    }
 
-        return rpnTokens != null ? calc(rpnTokens) : null;
+    // Parse expression to the program in reverse polish notation or take it from cache, if it was parsed before.
+    // Returns null if expression is invalid.
+    public RpnProgram parse(String expression) {
+        return cache.get(expression, this::convert);
     }
 
-    private Double calc(List<String> tokens) {
-        Stack<Double> numbers = new Stack<>();
+    public ExpressionCache.Statistics getCacheStatistics() {
+        return cache.getStatistics();
+    }
 
-        for (String token : tokens) {
-            if (Validator.isNumber(token)) {
-                numbers.add(Double.parseDouble(token));
-            } else {
-                if (!calc(numbers, token)) {
-                    return null;
-                }
+    // Build expression tree from program in reverse polish notation.
+    private Expression build(RpnProgram program, String[] argumentNames) {
+        int[] argumentIndexes = new int[program.variables.length];
+
+        for (int i = 0; i < argumentIndexes.length; i++) {
+            argumentIndexes[i] = indexOf(argumentNames, program.variables[i]);
+            if (argumentIndexes[i] == -1) {
+                return null;
+            }
+        }
+
+        Deque<Expression> operands = new ArrayDeque<>();
+
+        for (int i = 0; i < program.code.length; i++) {
+            switch (program.code[i]) {
+                case RpnProgram.CONSTANT:
+                    operands.push(new Expression.Constant(program.constants[program.operands[i]]));
+                    break;
+                case RpnProgram.VARIABLE:
+                    operands.push(new Expression.Argument(argumentIndexes[program.operands[i]]));
+                    break;
+                case RpnProgram.NEGATE:
+                    operands.push(new Expression.Negation(operands.pop()));
+                    break;
+                default:
+                    Expression b = operands.pop();
+                    Expression a = operands.pop();
+                    operands.push(createOperation(program.code[i], a, b));
             }
         }
 
-        return numbers.size() != 1 ? null : numbers.pop();
+        return operands.pop();
+    }
+
+    private Expression createOperation(byte opcode, Expression a, Expression b) {
+        switch (opcode) {
+            case RpnProgram.ADD:
+                return new Expression.Addition(a, b);
+            case RpnProgram.SUBTRACT:
+                return new Expression.Subtraction(a, b);
+            case RpnProgram.MULTIPLY:
+                return new Expression.Multiplication(a, b);
+            case RpnProgram.DIVIDE:
+                return new Expression.Division(a, b);
+            default:
+                return new Expression.Power(a, b);
+        }
+    }
+
+    private double[] getStack(RpnProgram program) {
+        double[] stack = stacks.get();
+        if (stack.length < program.stackSize) {
+            stack = new double[program.stackSize];
+            stacks.set(stack);
+        }
+        return stack;
+    }
+
+    private double[] getValues(RpnProgram program) {
+        double[] values = this.values.get();
+        if (values.length < program.variables.length) {
+            values = new double[program.variables.length];
+            this.values.set(values);
+        }
+        return values;
     }
 
     // Convert expression to reverse polish notation for excluding ( )
-    private List<String> convert(String[] tokens) {
-        ArrayList<String> result = new ArrayList<>();
+    // Names are kept as variables, which values are bound on evaluation.
+    private RpnProgram convert(String expression) {
+        List<Token> tokens = Lexer.tokenize(expression);
+        RpnProgram.Builder result = new RpnProgram.Builder();
         ArrayList<String> operators = new ArrayList<>();
 
-        for (int i = 0; i < tokens.length; i++) {
-            String token = tokens[i].trim();
+        for (int i = 0; i < tokens.size(); i++) {
+            Token token = tokens.get(i);
 
             if (isUnarySign(token, i, tokens, result)) {
-                i++;
-                switch (token) {
+                Token operand = tokens.get(++i);
+                switch (token.text) {
                     case Constants.PLUS:
-                        result.add(tokens[i]);
+                        addOperand(result, operand);
                         break;
                     case Constants.MINUS:
-                        double f = Double.parseDouble(tokens[i]);
-                        String number = String.valueOf(-f);
-                        result.add(number);
+                        if (operand.isNumber()) {
+                            result.constant(-operand.value);
+                        } else {
+                            result.variable(operand.text);
+                            result.negate();
+                        }
                         break;
                     default:
                         return null;
                 }
-            } else if (Validator.isNumber(token)) {
-                result.add(token);
-            } else if (isOpeningBracket(token)) {
-                operators.add(token);
-            } else if (isClosingBracket(token)) {
+            } else if (isOperand(token)) {
+                addOperand(result, token);
+            } else if (isOpeningBracket(token.text)) {
+                operators.add(token.text);
+            } else if (isClosingBracket(token.text)) {
                 String openingBracket = null;
                 ArrayList<String> op = new ArrayList<>(operators);
                 Collections.reverse(op);
@@ -100,18 +219,18 @@ public class Calculator {
                         operators.remove(operators.size() - 1);
                         break;
                     }
-                    result.add(o);
+                    result.operator(o);
                     operators.remove(operators.size() - 1);
                 }
 
                 if (openingBracket == null) {
                     return null;
                 }
-            } else if (Validator.isSign(token)) {
+            } else if (Validator.isSign(token.text)) {
                 if (!operators.isEmpty()) {
                     String lastOperator = operators.get(operators.size() - 1);
-                    while (needPopOperator(token, lastOperator)) {
-                        result.add(lastOperator);
+                    while (needPopOperator(token.text, lastOperator)) {
+                        result.operator(lastOperator);
                         operators.remove(operators.size() - 1);
                         if (operators.isEmpty()) {
                             break;
@@ -120,57 +239,47 @@ public class Calculator {
                         }
                     }
                 }
-                operators.add(token);
-            } else if (!tokens[i].isEmpty()) {
+                operators.add(token.text);
+            } else {
                 return null;
             }
         }
 
         for (int i = operators.size() - 1; i >= 0; i--) {
             String element = operators.get(i);
-            result.add(element);
+            result.operator(element);
         }
 
-        return result;
+        return result.build();
     }
 
-    private boolean isUnarySign(String token, int i, String[] tokens, ArrayList<String> result) {
-        boolean isUnary = Validator.isUnarySign(token);
-        boolean isInCorrectPlace = result.isEmpty() || i == 0 || Validator.isPreUnarySign(tokens[i - 1]);
-        boolean isApplicable = (i < tokens.length - 1) && Validator.isNumber(tokens[i + 1]);
+    private boolean isUnarySign(Token token, int i, List<Token> tokens, RpnProgram.Builder result) {
+        boolean isUnary = token.isSymbol() && Validator.isUnarySign(token.text);
+        boolean isInCorrectPlace = result.isEmpty() || i == 0 || Validator.isPreUnarySign(tokens.get(i - 1).text);
+        boolean isApplicable = (i < tokens.size() - 1) && isOperand(tokens.get(i + 1));
         return isUnary && isInCorrectPlace && isApplicable;
     }
 
-    // Calculate expression in reverse polish notation
-    private boolean calc(Stack<Double> operands, String operator) {
-        double b, a;
-
-        if (operands.size() >= 2) {
-            b = operands.pop();
-            a = operands.pop();
-            switch (operator) {
-                case Constants.PLUS:
-                    operands.push(a + b);
-                    return true;
-                case Constants.MINUS:
-                    operands.push(a - b);
-                    return true;
-                case Constants.MULTIPLY:
-                    operands.push(a * b);
-                    return true;
-                case Constants.DIVIDE:
-                    operands.push(a / b);
-                    return true;
-                case Constants.POW:
-                    operands.push(Math.pow(a, b));
-                    return true;
-                default:
-                    System.out.println("Unknown operator " + operator);
-                    return false;
-            }
+    // Operand is number or name of variable.
+    private boolean isOperand(Token token) {
+        return token.isNumber() || (!token.isSymbol() && Validator.isNameAvailable(token.text));
+    }
+
+    private void addOperand(RpnProgram.Builder result, Token token) {
+        if (token.isNumber()) {
+            result.constant(token.value);
         } else {
-            return false;
+            result.variable(token.text);
+        }
+    }
+
+    private int indexOf(String[] names, String token) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(token)) {
+                return i;
+            }
         }
+        return -1;
     }
 
     private boolean isOpeningBracket(String token) {
@@ -0,0 +1,124 @@
+package calculator;
+
+// Arithmetic expression compiled to the tree of operations.
+// Lambda arguments are read from numbered slots, so the same tree could be evaluated
+// for every element of sequence without parsing expression again.
+public abstract class Expression {
+
+    // Evaluate expression, arguments[i] is value of i-th lambda argument.
+    public abstract double evaluate(double[] arguments);
+
+    public static final class Constant extends Expression {
+
+        public final double value;
+
+        public Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double evaluate(double[] arguments) {
+            return value;
+        }
+    }
+
+    public static final class Argument extends Expression {
+
+        public final int index;
+
+        public Argument(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public double evaluate(double[] arguments) {
+            return arguments[index];
+        }
+    }
+
+    // Unary minus, which could be applied only to argument or number.
+    public static final class Negation extends Expression {
+
+        public final Expression operand;
+
+        public Negation(Expression operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        public double evaluate(double[] arguments) {
+            return -operand.evaluate(arguments);
+        }
+    }
+
+    public abstract static class Operation extends Expression {
+
+        public final Expression left;
+        public final Expression right;
+
+        Operation(Expression left, Expression right) {
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    public static final class Addition extends Operation {
+
+        public Addition(Expression left, Expression right) {
+            super(left, right);
+        }
+
+        @Override
+        public double evaluate(double[] arguments) {
+            return left.evaluate(arguments) + right.evaluate(arguments);
+        }
+    }
+
+    public static final class Subtraction extends Operation {
+
+        public Subtraction(Expression left, Expression right) {
+            super(left, right);
+        }
+
+        @Override
+        public double evaluate(double[] arguments) {
+            return left.evaluate(arguments) - right.evaluate(arguments);
+        }
+    }
+
+    public static final class Multiplication extends Operation {
+
+        public Multiplication(Expression left, Expression right) {
+            super(left, right);
+        }
+
+        @Override
+        public double evaluate(double[] arguments) {
+            return left.evaluate(arguments) * right.evaluate(arguments);
+        }
+    }
+
+    public static final class Division extends Operation {
+
+        public Division(Expression left, Expression right) {
+            super(left, right);
+        }
+
+        @Override
+        public double evaluate(double[] arguments) {
+            return left.evaluate(arguments) / right.evaluate(arguments);
+        }
+    }
+
+    public static final class Power extends Operation {
+
+        public Power(Expression left, Expression right) {
+            super(left, right);
+        }
+
+        @Override
+        public double evaluate(double[] arguments) {
+            return Math.pow(left.evaluate(arguments), right.evaluate(arguments));
+        }
+    }
+}
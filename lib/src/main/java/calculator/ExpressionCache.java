@@ -0,0 +1,133 @@
+package calculator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Bounded cache of parsed expressions, which evicts least recently used programs.
+// Cache is split to segments with own locks, so threads which parse different expressions don't wait each other.
+public class ExpressionCache {
+
+    // Snapshot of cache counters.
+    public static class Statistics {
+
+        public final long hits;
+        public final long misses;
+        public final long evictions;
+        public final int size;
+
+        Statistics(long hits, long misses, long evictions, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics{" +
+                    "hits=" + hits +
+                    ", misses=" + misses +
+                    ", evictions=" + evictions +
+                    ", size=" + size +
+                    '}';
+        }
+    }
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final int SEGMENTS_COUNT = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS_COUNT];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ExpressionCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    // capacity is max count of programs kept in cache, it's divided between segments equally.
+    public ExpressionCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity of cache should be positive");
+        }
+
+        int segmentCapacity = (capacity + SEGMENTS_COUNT - 1) / SEGMENTS_COUNT;
+
+        for (int i = 0; i < SEGMENTS_COUNT; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    // Returns cached program for expression or parse it with `parser` and keep result.
+    // Invalid expressions (for which parser returns null) are not cached.
+    RpnProgram get(String expression, Function<String, RpnProgram> parser) {
+        Segment segment = segments[(expression.hashCode() & 0x7fffffff) % SEGMENTS_COUNT];
+
+        RpnProgram program;
+        synchronized (segment) {
+            program = segment.get(expression);
+        }
+
+        if (program != null) {
+            hits.increment();
+            return program;
+        }
+
+        misses.increment();
+
+        // Parsing is done out of lock, in the worst case the same expression would be parsed twice.
+        program = parser.apply(expression);
+
+        if (program != null) {
+            synchronized (segment) {
+                segment.put(expression, program);
+            }
+        }
+
+        return program;
+    }
+
+    public Statistics getStatistics() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return new Statistics(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    // LinkedHashMap in access order keeps least recently used program first.
+    // Segments are never serialized.
+    @SuppressWarnings("serial")
+    private class Segment extends LinkedHashMap<String, RpnProgram> {
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RpnProgram> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
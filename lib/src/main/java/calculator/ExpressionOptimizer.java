@@ -0,0 +1,118 @@
+package calculator;
+
+// Simplifies expression trees of lambdas before they are applied to elements of sequence.
+// Every rewrite keeps result bit-for-bit equal to evaluation of original tree (only sign of NaN is not kept),
+// so rules which are correct only for real numbers (like x + 0 = x, which is wrong for -0.0) are not applied.
+public final class ExpressionOptimizer {
+
+    private static final long POSITIVE_ZERO = Double.doubleToRawLongBits(0.0);
+    private static final long NEGATIVE_ZERO = Double.doubleToRawLongBits(-0.0);
+
+    private ExpressionOptimizer() {
+    }
+
+    public static Expression optimize(Expression expression) {
+        if (expression instanceof Expression.Negation) {
+            return optimizeNegation(optimize(((Expression.Negation) expression).operand));
+        } else if (expression instanceof Expression.Operation) {
+            Expression.Operation operation = (Expression.Operation) expression;
+            return optimizeOperation(operation, optimize(operation.left), optimize(operation.right));
+        } else {
+            return expression;
+        }
+    }
+
+    private static Expression optimizeNegation(Expression operand) {
+        if (operand instanceof Expression.Constant) {
+            return new Expression.Constant(-((Expression.Constant) operand).value);
+        } else if (operand instanceof Expression.Negation) {
+            // -(-x) = x
+            return ((Expression.Negation) operand).operand;
+        } else {
+            return new Expression.Negation(operand);
+        }
+    }
+
+    private static Expression optimizeOperation(Expression.Operation operation, Expression left, Expression right) {
+        // Constant subtree is evaluated once with the same operations, which would be done for every element.
+        if (left instanceof Expression.Constant && right instanceof Expression.Constant) {
+            return new Expression.Constant(create(operation, left, right).evaluate(null));
+        }
+
+        if (operation instanceof Expression.Addition) {
+            // x + (-0.0) = x, but x + 0.0 is kept, because -0.0 + 0.0 = 0.0
+            if (isConstant(right, NEGATIVE_ZERO)) {
+                return left;
+            } else if (isConstant(left, NEGATIVE_ZERO)) {
+                return right;
+            } else if (right instanceof Expression.Negation) {
+                // x + (-y) = x - y
+                return new Expression.Subtraction(left, ((Expression.Negation) right).operand);
+            }
+        } else if (operation instanceof Expression.Subtraction) {
+            // x - 0.0 = x, but x - (-0.0) is kept, because -0.0 - (-0.0) = 0.0
+            if (isConstant(right, POSITIVE_ZERO)) {
+                return left;
+            } else if (right instanceof Expression.Negation) {
+                // x - (-y) = x + y
+                return new Expression.Addition(left, ((Expression.Negation) right).operand);
+            }
+        } else if (operation instanceof Expression.Multiplication) {
+            if (isConstant(right, 1.0)) {
+                return left;
+            } else if (isConstant(left, 1.0)) {
+                return right;
+            }
+        } else if (operation instanceof Expression.Division) {
+            if (isConstant(right, 1.0)) {
+                return left;
+            }
+        } else if (operation instanceof Expression.Power) {
+            if (isConstant(right, 1.0)) {
+                return left;
+            } else if (isConstant(right, 0.0) || isConstant(right, -0.0)) {
+                // pow(x, +/-0) is 1 for any x, including NaN
+                return new Expression.Constant(1.0);
+            } else if (isConstant(right, 2.0) && isSimple(left)) {
+                // pow(x, 2) is computed as x * x by Math.pow, higher powers are kept,
+                // because x * x * x is rounded twice and could differ from Math.pow.
+                return new Expression.Multiplication(left, left);
+            }
+        }
+
+        return create(operation, left, right);
+    }
+
+    // Simple operand is cheap to evaluate twice.
+    private static boolean isSimple(Expression expression) {
+        return expression instanceof Expression.Argument
+                || (expression instanceof Expression.Negation
+                && ((Expression.Negation) expression).operand instanceof Expression.Argument);
+    }
+
+    private static boolean isConstant(Expression expression, double value) {
+        return isConstant(expression, Double.doubleToRawLongBits(value));
+    }
+
+    private static boolean isConstant(Expression expression, long bits) {
+        return expression instanceof Expression.Constant
+                && Double.doubleToRawLongBits(((Expression.Constant) expression).value) == bits;
+    }
+
+    // Create operation of the same type with new operands.
+    private static Expression create(Expression.Operation operation, Expression left, Expression right) {
+        if (operation.left == left && operation.right == right) {
+            return operation;
+        } else if (operation instanceof Expression.Addition) {
+            return new Expression.Addition(left, right);
+        } else if (operation instanceof Expression.Subtraction) {
+            return new Expression.Subtraction(left, right);
+        } else if (operation instanceof Expression.Multiplication) {
+            return new Expression.Multiplication(left, right);
+        } else if (operation instanceof Expression.Division) {
+            return new Expression.Division(left, right);
+        } else {
+            return new Expression.Power(left, right);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package calculator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+// Compiles expression trees of lambdas to operators, which are applied to the elements of sequences.
+// TREE tier wraps every node of the tree to operator and evaluates them one by one.
+// BYTECODE tier generates hidden class with arithmetic of the whole lambda in one method,
+// so HotSpot could inline it into the loops of executors.
+public final class LambdaCompiler {
+
+    public enum Tier {
+        TREE,
+        BYTECODE
+    }
+
+    // Tier could be selected with `-Dinterpreter.lambda.tier=tree` for comparing tiers or falling back to tree.
+    public static final Tier DEFAULT_TIER = getTier(System.getProperty("interpreter.lambda.tier"));
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private LambdaCompiler() {
+    }
+
+    // Compile lambda with one argument for `map()`.
+    public static DoubleUnaryOperator compileUnary(Expression expression, Tier tier) {
+        if (tier == Tier.BYTECODE) {
+            Object operator = generate(expression, 1);
+            if (operator != null) {
+                return (DoubleUnaryOperator) operator;
+            }
+        }
+
+        DoubleBinaryOperator operator = toTree(expression);
+        return x -> operator.applyAsDouble(x, 0);
+    }
+
+    // Compile lambda with two arguments for `reduce()`.
+    public static DoubleBinaryOperator compileBinary(Expression expression, Tier tier) {
+        if (tier == Tier.BYTECODE) {
+            Object operator = generate(expression, 2);
+            if (operator != null) {
+                return (DoubleBinaryOperator) operator;
+            }
+        }
+
+        return toTree(expression);
+    }
+
+    private static Tier getTier(String name) {
+        return Tier.TREE.name().equalsIgnoreCase(name) ? Tier.TREE : Tier.BYTECODE;
+    }
+
+    // Every node of tree is replaced with operator, which calls operators of child nodes.
+    // Values of arguments are passed as parameters, so operators are stateless and could be shared between threads.
+    private static DoubleBinaryOperator toTree(Expression expression) {
+        if (expression instanceof Expression.Constant) {
+            double value = ((Expression.Constant) expression).value;
+            return (x, y) -> value;
+        } else if (expression instanceof Expression.Argument) {
+            return ((Expression.Argument) expression).index == 0 ? (x, y) -> x : (x, y) -> y;
+        } else if (expression instanceof Expression.Negation) {
+            DoubleBinaryOperator operand = toTree(((Expression.Negation) expression).operand);
+            return (x, y) -> -operand.applyAsDouble(x, y);
+        }
+
+        Expression.Operation operation = (Expression.Operation) expression;
+        DoubleBinaryOperator left = toTree(operation.left);
+        DoubleBinaryOperator right = toTree(operation.right);
+
+        if (operation instanceof Expression.Addition) {
+            return (x, y) -> left.applyAsDouble(x, y) + right.applyAsDouble(x, y);
+        } else if (operation instanceof Expression.Subtraction) {
+            return (x, y) -> left.applyAsDouble(x, y) - right.applyAsDouble(x, y);
+        } else if (operation instanceof Expression.Multiplication) {
+            return (x, y) -> left.applyAsDouble(x, y) * right.applyAsDouble(x, y);
+        } else if (operation instanceof Expression.Division) {
+            return (x, y) -> left.applyAsDouble(x, y) / right.applyAsDouble(x, y);
+        } else {
+            return (x, y) -> Math.pow(left.applyAsDouble(x, y), right.applyAsDouble(x, y));
+        }
+    }
+
+    // Define hidden class, which implements DoubleUnaryOperator or DoubleBinaryOperator, and create its instance.
+    // Returns null if class cannot be generated, then caller falls back to tree.
+    private static Object generate(Expression expression, int argumentsCount) {
+        try {
+            byte[] bytes = new ClassGenerator(expression, argumentsCount).generate();
+            if (bytes == null) {
+                return null;
+            }
+            Class<?> generatedClass = LOOKUP.defineHiddenClass(bytes, true).lookupClass();
+            return generatedClass.getConstructor().newInstance();
+        } catch (IOException | ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    // Writes class file with constructor and `applyAsDouble` method.
+    // Method has no branches, so it doesn't need stack map frames.
+    private static class ClassGenerator {
+
+        private static final String CLASS_NAME = "calculator/GeneratedLambda";
+
+        private static final int MAX_LENGTH = 0xFFFF;
+
+        private static final byte CONSTANT_UTF8 = 1;
+        private static final byte CONSTANT_DOUBLE = 6;
+        private static final byte CONSTANT_CLASS = 7;
+        private static final byte CONSTANT_METHOD_REF = 10;
+        private static final byte CONSTANT_NAME_AND_TYPE = 12;
+
+        private static final int DCONST_0 = 0x0e;
+        private static final int DCONST_1 = 0x0f;
+        private static final int LDC2_W = 0x14;
+        private static final int DLOAD_1 = 0x27;
+        private static final int DLOAD_3 = 0x29;
+        private static final int ALOAD_0 = 0x2a;
+        private static final int DADD = 0x63;
+        private static final int DSUB = 0x67;
+        private static final int DMUL = 0x6b;
+        private static final int DDIV = 0x6f;
+        private static final int DNEG = 0x77;
+        private static final int DRETURN = 0xaf;
+        private static final int RETURN = 0xb1;
+        private static final int INVOKESPECIAL = 0xb7;
+        private static final int INVOKESTATIC = 0xb8;
+
+        private final Expression expression;
+        private final int argumentsCount;
+
+        private final ByteArrayOutputStream constantPoolBytes = new ByteArrayOutputStream();
+        private final DataOutputStream constantPool = new DataOutputStream(constantPoolBytes);
+        private int constantPoolCount = 1;
+        private final Map<Object, Integer> constantIndexes = new HashMap<>();
+
+        private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+        private int depth = 0;
+        private int maxDepth = 0;
+
+        ClassGenerator(Expression expression, int argumentsCount) {
+            this.expression = expression;
+            this.argumentsCount = argumentsCount;
+        }
+
+        byte[] generate() throws IOException {
+            String interfaceName = argumentsCount == 1
+                    ? "java/util/function/DoubleUnaryOperator"
+                    : "java/util/function/DoubleBinaryOperator";
+            String descriptor = argumentsCount == 1 ? "(D)D" : "(DD)D";
+
+            // Constant pool is written before methods, so all constants should be added before writing of class.
+            int thisClass = classConstant(CLASS_NAME);
+            int superClass = classConstant("java/lang/Object");
+            int interfaceClass = classConstant(interfaceName);
+            int superConstructor = methodConstant(superClass, "<init>", "()V");
+            int constructorName = utf8Constant("<init>");
+            int constructorDescriptor = utf8Constant("()V");
+            int methodName = utf8Constant("applyAsDouble");
+            int methodDescriptor = utf8Constant(descriptor);
+            int codeAttribute = utf8Constant("Code");
+
+            emit(expression);
+            code.write(DRETURN);
+
+            if (code.size() > MAX_LENGTH || constantPoolCount > MAX_LENGTH) {
+                return null;
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(52);
+
+            out.writeShort(constantPoolCount);
+            constantPool.flush();
+            constantPoolBytes.writeTo(out);
+
+            out.writeShort(0x0001 | 0x0010 | 0x0020); // public final super
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(interfaceClass);
+            out.writeShort(0); // fields
+
+            out.writeShort(2); // methods
+
+            // public <init>() { super(); }
+            out.writeShort(0x0001);
+            out.writeShort(constructorName);
+            out.writeShort(constructorDescriptor);
+            byte[] constructorCode = {
+                    (byte) ALOAD_0,
+                    (byte) INVOKESPECIAL, (byte) (superConstructor >> 8), (byte) superConstructor,
+                    (byte) RETURN
+            };
+            writeCode(out, codeAttribute, 1, 1, constructorCode);
+
+            // public final double applyAsDouble(double x[, double y]) { return <expression>; }
+            out.writeShort(0x0001 | 0x0010);
+            out.writeShort(methodName);
+            out.writeShort(methodDescriptor);
+            writeCode(out, codeAttribute, maxDepth * 2, 1 + argumentsCount * 2, code.toByteArray());
+
+            out.writeShort(0); // class attributes
+            out.flush();
+
+            return bytes.toByteArray();
+        }
+
+        private void writeCode(DataOutputStream out, int name, int maxStack, int maxLocals, byte[] code)
+                throws IOException {
+            out.writeShort(1);
+            out.writeShort(name);
+            out.writeInt(12 + code.length);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.length);
+            out.write(code);
+            out.writeShort(0); // exception table
+            out.writeShort(0); // attributes
+        }
+
+        private void emit(Expression expression) throws IOException {
+            if (expression instanceof Expression.Constant) {
+                emitConstant(((Expression.Constant) expression).value);
+            } else if (expression instanceof Expression.Argument) {
+                int index = ((Expression.Argument) expression).index;
+                if (index >= argumentsCount) {
+                    throw new IOException("Lambda has no argument " + index);
+                }
+                code.write(index == 0 ? DLOAD_1 : DLOAD_3);
+                push();
+            } else if (expression instanceof Expression.Negation) {
+                emit(((Expression.Negation) expression).operand);
+                code.write(DNEG);
+            } else {
+                Expression.Operation operation = (Expression.Operation) expression;
+                emit(operation.left);
+                emit(operation.right);
+                emitOperation(operation);
+                depth--;
+            }
+        }
+
+        private void emitConstant(double value) throws IOException {
+            long bits = Double.doubleToRawLongBits(value);
+
+            if (bits == Double.doubleToRawLongBits(0.0)) {
+                code.write(DCONST_0);
+            } else if (bits == Double.doubleToRawLongBits(1.0)) {
+                code.write(DCONST_1);
+            } else {
+                int index = doubleConstant(value);
+                code.write(LDC2_W);
+                code.write(index >> 8);
+                code.write(index);
+            }
+            push();
+        }
+
+        private void emitOperation(Expression.Operation operation) throws IOException {
+            if (operation instanceof Expression.Addition) {
+                code.write(DADD);
+            } else if (operation instanceof Expression.Subtraction) {
+                code.write(DSUB);
+            } else if (operation instanceof Expression.Multiplication) {
+                code.write(DMUL);
+            } else if (operation instanceof Expression.Division) {
+                code.write(DDIV);
+            } else {
+                int pow = methodConstant(classConstant("java/lang/Math"), "pow", "(DD)D");
+                code.write(INVOKESTATIC);
+                code.write(pow >> 8);
+                code.write(pow);
+            }
+        }
+
+        private void push() {
+            depth++;
+            maxDepth = Math.max(depth, maxDepth);
+        }
+
+        private int utf8Constant(String value) throws IOException {
+            Integer index = constantIndexes.get(value);
+            if (index == null) {
+                constantPool.writeByte(CONSTANT_UTF8);
+                constantPool.writeUTF(value);
+                index = constantPoolCount++;
+                constantIndexes.put(value, index);
+            }
+            return index;
+        }
+
+        private int classConstant(String name) throws IOException {
+            String key = "class " + name;
+            Integer index = constantIndexes.get(key);
+            if (index == null) {
+                int nameIndex = utf8Constant(name);
+                constantPool.writeByte(CONSTANT_CLASS);
+                constantPool.writeShort(nameIndex);
+                index = constantPoolCount++;
+                constantIndexes.put(key, index);
+            }
+            return index;
+        }
+
+        private int methodConstant(int owner, String name, String descriptor) throws IOException {
+            String key = "method " + owner + " " + name + descriptor;
+            Integer index = constantIndexes.get(key);
+            if (index == null) {
+                int nameIndex = utf8Constant(name);
+                int descriptorIndex = utf8Constant(descriptor);
+                constantPool.writeByte(CONSTANT_NAME_AND_TYPE);
+                constantPool.writeShort(nameIndex);
+                constantPool.writeShort(descriptorIndex);
+                int nameAndType = constantPoolCount++;
+
+                constantPool.writeByte(CONSTANT_METHOD_REF);
+                constantPool.writeShort(owner);
+                constantPool.writeShort(nameAndType);
+                index = constantPoolCount++;
+                constantIndexes.put(key, index);
+            }
+            return index;
+        }
+
+        // Double takes two entries of constant pool.
+        private int doubleConstant(double value) throws IOException {
+            Long key = Double.doubleToRawLongBits(value);
+            Integer index = constantIndexes.get(key);
+            if (index == null) {
+                constantPool.writeByte(CONSTANT_DOUBLE);
+                constantPool.writeLong(key);
+                index = constantPoolCount;
+                constantPoolCount += 2;
+                constantIndexes.put(key, index);
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package calculator;
+
+import tools.Constants;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Expression in reverse polish notation encoded to opcodes.
+// Numbers are kept in the pool of constants, variables are kept by names and their values are bound on evaluation,
+// so the same program could be evaluated many times without parsing and without allocations.
+public final class RpnProgram {
+
+    static final byte CONSTANT = 0;
+    static final byte VARIABLE = 1;
+    static final byte NEGATE = 2;
+    static final byte ADD = 3;
+    static final byte SUBTRACT = 4;
+    static final byte MULTIPLY = 5;
+    static final byte DIVIDE = 6;
+    static final byte POW = 7;
+
+    final byte[] code;
+
+    // Index in `constants` for CONSTANT and index in `variables` for VARIABLE, unused for other opcodes.
+    final int[] operands;
+
+    final double[] constants;
+
+    // Names of variables, value of i-th variable is read from values[i] on evaluation.
+    public final String[] variables;
+
+    // Max count of operands, which are kept in the stack at the same time.
+    public final int stackSize;
+
+    private RpnProgram(byte[] code, int[] operands, double[] constants, String[] variables, int stackSize) {
+        this.code = code;
+        this.operands = operands;
+        this.constants = constants;
+        this.variables = variables;
+        this.stackSize = stackSize;
+    }
+
+    // Evaluate program. values[i] is value of i-th variable, stack should have at least `stackSize` items.
+    public double evaluate(double[] values, double[] stack) {
+        int top = -1;
+
+        for (int i = 0; i < code.length; i++) {
+            switch (code[i]) {
+                case CONSTANT:
+                    stack[++top] = constants[operands[i]];
+                    break;
+                case VARIABLE:
+                    stack[++top] = values[operands[i]];
+                    break;
+                case NEGATE:
+                    stack[top] = -stack[top];
+                    break;
+                case ADD:
+                    top--;
+                    stack[top] = stack[top] + stack[top + 1];
+                    break;
+                case SUBTRACT:
+                    top--;
+                    stack[top] = stack[top] - stack[top + 1];
+                    break;
+                case MULTIPLY:
+                    top--;
+                    stack[top] = stack[top] * stack[top + 1];
+                    break;
+                case DIVIDE:
+                    top--;
+                    stack[top] = stack[top] / stack[top + 1];
+                    break;
+                case POW:
+                    top--;
+                    stack[top] = Math.pow(stack[top], stack[top + 1]);
+                    break;
+            }
+        }
+
+        return stack[0];
+    }
+
+    // Convert expression tree of lambda back to program, i-th argument of lambda becomes i-th variable.
+    public static RpnProgram of(Expression expression, String[] argumentNames) {
+        Builder builder = new Builder();
+        for (String name : argumentNames) {
+            builder.variables.add(name);
+        }
+        emit(expression, builder, argumentNames);
+        return builder.build();
+    }
+
+    private static void emit(Expression expression, Builder builder, String[] argumentNames) {
+        if (expression instanceof Expression.Constant) {
+            builder.constant(((Expression.Constant) expression).value);
+        } else if (expression instanceof Expression.Argument) {
+            builder.variable(argumentNames[((Expression.Argument) expression).index]);
+        } else if (expression instanceof Expression.Negation) {
+            emit(((Expression.Negation) expression).operand, builder, argumentNames);
+            builder.negate();
+        } else {
+            Expression.Operation operation = (Expression.Operation) expression;
+            emit(operation.left, builder, argumentNames);
+            emit(operation.right, builder, argumentNames);
+            builder.operation(getOpcode(operation));
+        }
+    }
+
+    private static byte getOpcode(Expression.Operation operation) {
+        if (operation instanceof Expression.Addition) {
+            return ADD;
+        } else if (operation instanceof Expression.Subtraction) {
+            return SUBTRACT;
+        } else if (operation instanceof Expression.Multiplication) {
+            return MULTIPLY;
+        } else if (operation instanceof Expression.Division) {
+            return DIVIDE;
+        } else {
+            return POW;
+        }
+    }
+
+    // Collect opcodes in order of reverse polish notation and check that every operator has enough operands.
+    static final class Builder {
+
+        private byte[] code = new byte[16];
+        private int[] operands = new int[16];
+        private int size = 0;
+
+        private double[] constants = new double[8];
+        private int constantsCount = 0;
+
+        private final List<String> variables = new ArrayList<>();
+
+        private int depth = 0;
+        private int maxDepth = 0;
+        private boolean isValid = true;
+
+        void constant(double value) {
+            if (constantsCount == constants.length) {
+                constants = Arrays.copyOf(constants, constantsCount * 2);
+            }
+            constants[constantsCount] = value;
+            append(CONSTANT, constantsCount++);
+            push();
+        }
+
+        void variable(String name) {
+            int index = variables.indexOf(name);
+            if (index == -1) {
+                index = variables.size();
+                variables.add(name);
+            }
+            append(VARIABLE, index);
+            push();
+        }
+
+        void negate() {
+            if (depth < 1) {
+                isValid = false;
+            }
+            append(NEGATE, 0);
+        }
+
+        void operator(String operator) {
+            operation(getOpcode(operator));
+        }
+
+        void operation(byte opcode) {
+            if (opcode == -1 || depth < 2) {
+                isValid = false;
+            }
+
+            append(opcode, 0);
+            depth--;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        // Returns null, if program cannot be evaluated.
+        RpnProgram build() {
+            if (!isValid || depth != 1) {
+                return null;
+            }
+
+            return new RpnProgram(
+                    Arrays.copyOf(code, size),
+                    Arrays.copyOf(operands, size),
+                    Arrays.copyOf(constants, constantsCount),
+                    variables.toArray(new String[0]),
+                    maxDepth
+            );
+        }
+
+        private void push() {
+            depth++;
+            maxDepth = Math.max(depth, maxDepth);
+        }
+
+        private void append(byte opcode, int operand) {
+            if (size == code.length) {
+                code = Arrays.copyOf(code, size * 2);
+                operands = Arrays.copyOf(operands, size * 2);
+            }
+            code[size] = opcode;
+            operands[size] = operand;
+            size++;
+        }
+
+        private byte getOpcode(String operator) {
+            switch (operator) {
+                case Constants.PLUS:
+                    return ADD;
+                case Constants.MINUS:
+                    return SUBTRACT;
+                case Constants.MULTIPLY:
+                    return MULTIPLY;
+                case Constants.DIVIDE:
+                    return DIVIDE;
+                case Constants.POW:
+                    return POW;
+                default:
+                    return -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package calculator;
+
+import java.util.Arrays;
+
+// Evaluates program of `map()` lambda for a chunk of elements at once.
+// Every operation is applied to the whole column of operands before the next one,
+// so loops over columns are simple enough to be vectorized with SIMD instructions by JIT compiler.
+// `^` has no SIMD form, so it falls back to computing Math.pow element by element.
+// It doesn't use `jdk.incubator.vector`, so it works on every JVM without `--add-modules`, and mode is not
+// switched by presence of that module, only by `interpreter.map.vectorized` (see MapExecutor).
+// Speed of modes could be compared with MapBenchmark of tests.
+// Evaluator keeps columns between calls, so it should be used only by one thread.
+final class VectorEvaluator {
+
+    static final int CHUNK_SIZE = 1024;
+
+    private double[][] columns = new double[0][];
+
+    // Evaluate program for input[from, to), the only variable of program is bound to the element of input.
+    // Results are written to output[from, to), output could be the same array as input.
+    void evaluate(RpnProgram program, double[] input, double[] output, int from, int to) {
+        if (columns.length < program.stackSize) {
+            columns = new double[program.stackSize][CHUNK_SIZE];
+        }
+
+        for (int start = from; start < to; start += CHUNK_SIZE) {
+            int length = Math.min(CHUNK_SIZE, to - start);
+            evaluateChunk(program, input, start, length);
+            System.arraycopy(columns[0], 0, output, start, length);
+        }
+    }
+
+    private void evaluateChunk(RpnProgram program, double[] input, int offset, int length) {
+        byte[] code = program.code;
+        int top = -1;
+
+        for (int i = 0; i < code.length; i++) {
+            byte opcode = code[i];
+
+            // Operand, which is consumed by the next operation, is not copied to column.
+            boolean isNextOperation = i + 1 < code.length && code[i + 1] >= RpnProgram.ADD;
+
+            switch (opcode) {
+                case RpnProgram.CONSTANT:
+                    double value = program.constants[program.operands[i]];
+                    if (isNextOperation) {
+                        apply(code[++i], columns[top], value, length);
+                    } else {
+                        Arrays.fill(columns[++top], 0, length, value);
+                    }
+                    break;
+                case RpnProgram.VARIABLE:
+                    if (isNextOperation) {
+                        apply(code[++i], columns[top], input, offset, length);
+                    } else {
+                        System.arraycopy(input, offset, columns[++top], 0, length);
+                    }
+                    break;
+                case RpnProgram.NEGATE:
+                    negate(columns[top], length);
+                    break;
+                default:
+                    apply(opcode, columns[top - 1], columns[top], 0, length);
+                    top--;
+            }
+        }
+    }
+
+    private static void negate(double[] a, int length) {
+        for (int i = 0; i < length; i++) {
+            a[i] = -a[i];
+        }
+    }
+
+    // a[i] = a[i] `operation` b[offset + i]
+    private static void apply(byte opcode, double[] a, double[] b, int offset, int length) {
+        switch (opcode) {
+            case RpnProgram.ADD:
+                for (int i = 0; i < length; i++) {
+                    a[i] += b[offset + i];
+                }
+                break;
+            case RpnProgram.SUBTRACT:
+                for (int i = 0; i < length; i++) {
+                    a[i] -= b[offset + i];
+                }
+                break;
+            case RpnProgram.MULTIPLY:
+                for (int i = 0; i < length; i++) {
+                    a[i] *= b[offset + i];
+                }
+                break;
+            case RpnProgram.DIVIDE:
+                for (int i = 0; i < length; i++) {
+                    a[i] /= b[offset + i];
+                }
+                break;
+            default:
+                for (int i = 0; i < length; i++) {
+                    a[i] = Math.pow(a[i], b[offset + i]);
+                }
+        }
+    }
+
+    // a[i] = a[i] `operation` value
+    private static void apply(byte opcode, double[] a, double value, int length) {
+        switch (opcode) {
+            case RpnProgram.ADD:
+                for (int i = 0; i < length; i++) {
+                    a[i] += value;
+                }
+                break;
+            case RpnProgram.SUBTRACT:
+                for (int i = 0; i < length; i++) {
+                    a[i] -= value;
+                }
+                break;
+            case RpnProgram.MULTIPLY:
+                for (int i = 0; i < length; i++) {
+                    a[i] *= value;
+                }
+                break;
+            case RpnProgram.DIVIDE:
+                for (int i = 0; i < length; i++) {
+                    a[i] /= value;
+                }
+                break;
+            default:
+                for (int i = 0; i < length; i++) {
+                    a[i] = Math.pow(a[i], value);
+                }
+        }
+    }
+}
@@ -1,23 +1,16 @@
 package formatter;
 
 import calculator.Calculator;
+import lexer.Lexer;
+import lexer.Token;
 import provider.NumbersProvider;
+import sequence.RangeSequence;
 import tools.Constants;
 import tools.Validator;
 
 public class Formatter {
 
-    // Return string in which all symbols wrapped around with spaces.
-    // It uses for splitting line by tokens easily.
-    public static String getStringWithSpaces(String line) {
-        String formattedLine = line;
-        for (String symbol : Constants.SYMBOLS) {
-            formattedLine = formattedLine.replace(symbol, Constants.SPACE + symbol + Constants.SPACE);
-        }
-        return formattedLine;
-    }
-
-    // Validate and transform sequence from string to double[].
+    // Validate and transform sequence from string to Sequence.
     public static SequenceParserResult formatSequence(
             Calculator calculator,
             String currentSequence,
@@ -38,15 +31,18 @@ public class Formatter {
             return sequenceParserResult;
         }
 
-        int[] sequence = new int[stringItems.length];
+        long[] sequence = new long[stringItems.length];
 
         for (int i = 0; i < stringItems.length; i++) {
             Double calculatedExpression = calculator.calc(stringItems[i], numbersProvider);
-            if (calculatedExpression != null && calculatedExpression % 1 == 0) {
-                sequence[i] = calculatedExpression.intValue();
-            } else {
+            if (calculatedExpression == null || calculatedExpression % 1 != 0) {
                 sequenceParserResult.errors.add("Sequence must contains only integers");
                 return sequenceParserResult;
+            } else if (Math.abs(calculatedExpression) > RangeSequence.MAX_BOUND) {
+                sequenceParserResult.errors.add("Sequence items must not exceed 2^53 by absolute value");
+                return sequenceParserResult;
+            } else {
+                sequence[i] = calculatedExpression.longValue();
             }
         }
 
@@ -55,11 +51,8 @@ public class Formatter {
             return sequenceParserResult;
         }
 
-        sequenceParserResult.sequence = new double[sequence[1] - sequence[0] + 1];
-
-        for (int i = sequence[0]; i <= sequence[1]; i++) {
-            sequenceParserResult.sequence[i - sequence[0]] = i;
-        }
+        // elements of range are not stored, they are computed when sequence is read.
+        sequenceParserResult.sequence = new RangeSequence(sequence[0], sequence[1]);
 
         return sequenceParserResult;
     }
@@ -70,27 +63,17 @@ public class Formatter {
             NumbersProvider numbersProvider
     ) {
 
-        String[] expressionTokens = Formatter.getStringWithSpaces(expression).split(" +");
         ExpressionParserResult expressionParserResult = new ExpressionParserResult();
         StringBuilder expressionBuilder = new StringBuilder();
-        for (String token : expressionTokens) {
-            token = token.trim();
-
-            String  value = numbersProvider.getNumberByName(token);
-            if (value != null) {
-                token = value;
-            }
-
-            if (token.isEmpty()) {
-                continue;
-            }
-
-            if (!Validator.isSign(token)
-                    && !Validator.isNumber(token)) {
-                expressionParserResult.errors.add("Undefined symbol: " + token);
-                return expressionParserResult;
+        for (Token token : Lexer.tokenize(expression)) {
+            if (!token.isSymbol() && numbersProvider.getSlot(token.text) >= 0) {
+                // variable is kept by name, calculator takes its value from provider.
+                expressionBuilder.append(Constants.SPACE).append(token.text).append(Constants.SPACE);
+            } else if (token.isNumber() || Validator.isSign(token.text)) {
+                expressionBuilder.append(token.text);
             } else {
-                expressionBuilder.append(token);
+                expressionParserResult.errors.add("Undefined symbol: " + token.text);
+                return expressionParserResult;
             }
         }
 
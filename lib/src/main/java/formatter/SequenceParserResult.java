@@ -1,9 +1,11 @@
 package formatter;
 
+import sequence.Sequence;
+
 import java.util.ArrayList;
 import java.util.List;
 
 public class SequenceParserResult {
-    public double[] sequence;
+    public Sequence sequence;
     public final List<String> errors = new ArrayList<>();
 }
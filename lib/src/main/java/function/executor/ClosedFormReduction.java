@@ -0,0 +1,213 @@
+package function.executor;
+
+import calculator.Expression;
+import sequence.RangeSequence;
+import sequence.Sequence;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+// Computes `reduce()` without iterating elements, if its lambda is sum or product of arguments
+// and sequence is range or chain of maps of range, which lambdas are polynomials.
+//
+// Sum is computed exactly and rounded once, so it's the same as the sum of elements one by one,
+// while all partial sums are exact. Otherwise iteration rounds partial sums, so closed form is used only
+// for ranges, which are reduced in batches, and result of iteration depends on division to batches anyway.
+// Closed form gives correctly rounded sum for them.
+// Product of integers over long range always overflows, so only its sign has to be computed.
+final class ClosedFormReduction {
+
+    // Product of integers, which are at least 2 by absolute value, overflows with this count of them.
+    private static final long OVERFLOWING_LENGTH = 1100;
+
+    // Values of polynomial are checked for zeros and signs only near its roots, but not more than this count.
+    private static final long MAX_CHECKED_LENGTH = 1 << 16;
+
+    private enum Operation {SUM, PRODUCT}
+
+    private ClosedFormReduction() {
+    }
+
+    // Returns result of folding of all elements with lambda (without base element),
+    // or null if lambda or sequence is not recognized.
+    // Sequences with at least `threshold` elements are reduced in batches.
+    static Double reduce(Sequence sequence, Expression lambda, long threshold) {
+        Operation operation = getOperation(lambda);
+        if (operation == null) {
+            return null;
+        }
+
+        Deque<Expression> lambdas = new ArrayDeque<>();
+        while (sequence instanceof MappedSequence) {
+            lambdas.push(((MappedSequence) sequence).lambda);
+            sequence = ((MappedSequence) sequence).source;
+        }
+
+        if (!(sequence instanceof RangeSequence)) {
+            return null;
+        }
+
+        RangeSequence range = (RangeSequence) sequence;
+        Polynomial polynomial = Polynomial.of(new Expression.Argument(0), range.start, range.end);
+
+        while (polynomial != null && !lambdas.isEmpty()) {
+            polynomial = Polynomial.of(lambdas.pop(), polynomial, range.start, range.end);
+        }
+
+        if (polynomial == null) {
+            return null;
+        }
+
+        return operation == Operation.SUM
+                ? sum(polynomial, range.start, range.end, threshold)
+                : product(polynomial, range.start, range.end);
+    }
+
+    // `a b -> a + b` or `a b -> a * b` with arguments in any order.
+    private static Operation getOperation(Expression lambda) {
+        if (!(lambda instanceof Expression.Operation)) {
+            return null;
+        }
+
+        Expression.Operation operation = (Expression.Operation) lambda;
+        boolean isArguments = operation.left instanceof Expression.Argument
+                && operation.right instanceof Expression.Argument
+                && ((Expression.Argument) operation.left).index != ((Expression.Argument) operation.right).index;
+
+        if (isArguments && operation instanceof Expression.Addition) {
+            return Operation.SUM;
+        } else if (isArguments && operation instanceof Expression.Multiplication) {
+            return Operation.PRODUCT;
+        } else {
+            return null;
+        }
+    }
+
+    private static Double sum(Polynomial polynomial, long from, long to, long threshold) {
+        if (to - from + 1 < threshold && !polynomial.isSumExact(from, to)) {
+            return null;
+        }
+
+        BigInteger numerator = polynomial.sum(from, to);
+
+        // Sign of zero depends on signs of zero elements, so it's left to iteration.
+        if (numerator.signum() == 0) {
+            return null;
+        }
+
+        return toDouble(numerator, polynomial.shift);
+    }
+
+    private static Double product(Polynomial polynomial, long from, long to) {
+        long length = to - from + 1;
+
+        if (polynomial.isZero()) {
+            return null;
+        }
+
+        if (polynomial.degree() == 0) {
+            BigInteger value = polynomial.coefficients[0];
+
+            // Powers of +/-2 are multiplied exactly, until they overflow to infinity or underflow to zero.
+            if (value.abs().bitCount() == 1) {
+                long exponent = value.abs().getLowestSetBit() - polynomial.shift;
+                double sign = value.signum() < 0 && length % 2 == 1 ? -1.0 : 1.0;
+                return Math.scalb(sign, (int) Math.max(-4096, Math.min(4096, exponent * Math.min(length, 4096))));
+            }
+        }
+
+        // Integers, which are not zeros, are at least 1 by absolute value, and +/-1 is taken at most 2 * degree times,
+        // so long product overflows to infinity with any order of multiplications.
+        if (polynomial.shift != 0 || length <= OVERFLOWING_LENGTH + 2L * polynomial.degree()) {
+            return null;
+        }
+
+        Long negativesCount = countNegatives(polynomial, from, to);
+        if (negativesCount == null) {
+            return null;
+        }
+
+        return negativesCount % 2 == 0 ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+    }
+
+    // Count of negative values of polynomial for integers from `from` to `to`.
+    // Returns null if some of them is zero or they could not be checked.
+    private static Long countNegatives(Polynomial polynomial, long from, long to) {
+        BigInteger[] coefficients = polynomial.coefficients;
+        int degree = polynomial.degree();
+        BigInteger leading = coefficients[degree];
+
+        // Polynomial has no roots and doesn't change sign outside [-bound, bound] (Cauchy's bound, rounded up).
+        BigInteger maxCoefficient = BigInteger.ZERO;
+        for (int i = 0; i < degree; i++) {
+            maxCoefficient = maxCoefficient.max(coefficients[i].abs());
+        }
+
+        BigInteger bound = maxCoefficient.divide(leading.abs()).add(BigInteger.valueOf(2));
+        if (bound.bitLength() > 62) {
+            return null;
+        }
+
+        long checkedFrom = Math.max(from, -bound.longValue());
+        long checkedTo = Math.min(to, bound.longValue());
+
+        if (checkedTo - checkedFrom + 1 > MAX_CHECKED_LENGTH) {
+            return null;
+        }
+
+        long count = 0;
+
+        for (long x = checkedFrom; x <= checkedTo; x++) {
+            int sign = polynomial.evaluate(BigInteger.valueOf(x)).signum();
+            if (sign == 0) {
+                return null;
+            } else if (sign < 0) {
+                count++;
+            }
+        }
+
+        // Above the bound sign is the sign of leading coefficient, below it also depends on parity of degree.
+        long aboveCount = Math.max(0, to - Math.max(from, checkedTo + 1) + 1);
+        long belowCount = Math.max(0, Math.min(to, checkedFrom - 1) - from + 1);
+
+        if (checkedFrom > checkedTo) {
+            aboveCount = from > 0 ? to - from + 1 : 0;
+            belowCount = from > 0 ? 0 : to - from + 1;
+        }
+
+        if (leading.signum() < 0) {
+            count += aboveCount;
+        }
+        if ((leading.signum() < 0) == (degree % 2 == 0)) {
+            count += belowCount;
+        }
+
+        return count;
+    }
+
+    // Correctly rounded numerator / 2^shift.
+    private static double toDouble(BigInteger numerator, int shift) {
+        BigInteger magnitude = numerator.abs();
+        int droppedBits = magnitude.bitLength() - 53;
+        long mantissa;
+
+        if (droppedBits <= 0) {
+            mantissa = magnitude.longValue();
+            droppedBits = 0;
+        } else {
+            mantissa = magnitude.shiftRight(droppedBits).longValue();
+
+            // Round half to even.
+            boolean isHalf = magnitude.testBit(droppedBits - 1);
+            boolean isAboveHalf = magnitude.getLowestSetBit() < droppedBits - 1;
+            if (isHalf && (isAboveHalf || (mantissa & 1) == 1)) {
+                mantissa++;
+            }
+        }
+
+        int exponent = (int) Math.max(-4096, Math.min(4096, (long) droppedBits - shift));
+        double result = Math.scalb((double) mantissa, exponent);
+        return numerator.signum() < 0 ? -result : result;
+    }
+}
@@ -0,0 +1,105 @@
+package function.executor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// State of one run of program, which is shared by its executors and threads of engine.
+// Run is stopped, when it's cancelled, its deadline is passed, or it has processed more elements than its budget.
+// Long loops check it between chunks of elements, so they stop shortly after any of these in every thread.
+//
+// Default limits could be set with `-Dinterpreter.timeout.millis=N` and `-Dinterpreter.element.budget=N`,
+// by default runs are not limited.
+public final class ExecutionContext {
+
+    private static final long DEFAULT_TIMEOUT_MILLIS = Long.getLong("interpreter.timeout.millis", 0);
+    private static final long DEFAULT_ELEMENT_BUDGET = Long.getLong("interpreter.element.budget", 0);
+
+    // Reason, why run was stopped, it's `COMPLETED` while run is not stopped.
+    // `RUNNING` and `FAILED` are not reported by context, they are statuses of sessions of SessionEngine,
+    // which are not finished yet, or which are finished with exception.
+    public enum Status {
+        COMPLETED("completed"),
+        CANCELLED("cancelled"),
+        TIMED_OUT("timed out"),
+        BUDGET_EXCEEDED("element budget exceeded"),
+        RUNNING("running"),
+        FAILED("failed");
+
+        private final String text;
+
+        Status(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    private final boolean hasDeadline;
+
+    // Deadline in terms of `System.nanoTime()`.
+    private final long deadline;
+
+    // Count of elements, which could be processed, `Long.MAX_VALUE` if it's not limited.
+    private final long elementBudget;
+
+    private final AtomicLong elementsCount = new AtomicLong();
+    private final AtomicReference<Status> status = new AtomicReference<>(Status.COMPLETED);
+
+    public ExecutionContext() {
+        this(DEFAULT_TIMEOUT_MILLIS, DEFAULT_ELEMENT_BUDGET);
+    }
+
+    // Context of run, which takes at most `timeoutMillis` and processes at most `elementBudget` elements,
+    // 0 means no limit.
+    public ExecutionContext(long timeoutMillis, long elementBudget) {
+        if (timeoutMillis < 0 || elementBudget < 0) {
+            throw new IllegalArgumentException("Limits must not be negative");
+        }
+        this.hasDeadline = timeoutMillis > 0;
+        this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.elementBudget = elementBudget > 0 ? elementBudget : Long.MAX_VALUE;
+    }
+
+    // Could be called from any thread.
+    public void cancel() {
+        stop(Status.CANCELLED);
+    }
+
+    // Deadline is checked here, so it's called between chunks of elements, not for every element.
+    public boolean isStopped() {
+        if (status.get() != Status.COMPLETED) {
+            return true;
+        }
+
+        if (hasDeadline && System.nanoTime() - deadline >= 0) {
+            stop(Status.TIMED_OUT);
+            return true;
+        }
+
+        return false;
+    }
+
+    // Count processed elements, run is stopped, if they exceed the budget.
+    public void consume(long count) {
+        if (elementsCount.addAndGet(count) > elementBudget) {
+            stop(Status.BUDGET_EXCEEDED);
+        }
+    }
+
+    public long getElementsCount() {
+        return elementsCount.get();
+    }
+
+    public Status getStatus() {
+        return status.get();
+    }
+
+    // The first reason is kept.
+    private void stop(Status reason) {
+        status.compareAndSet(Status.COMPLETED, reason);
+    }
+}
@@ -0,0 +1,17 @@
+package function.executor;
+
+import java.util.function.IntConsumer;
+
+// Runs independent batches of work of executors in parallel.
+public interface ExecutionEngine {
+
+    // Count of batches, which could be processed at the same time.
+    int getParallelism();
+
+    // Call action for every batch index from 0 to count and return, when all of them are done.
+    // Exception of any batch is thrown after all started batches are finished.
+    void forEachBatch(int count, IntConsumer action);
+
+    // Stop threads of engine, batches could not be run after it.
+    void shutdown();
+}
@@ -1,28 +1,41 @@
 package function.executor;
 
 import calculator.Calculator;
+import calculator.Expression;
+import calculator.ExpressionOptimizer;
+import calculator.LambdaCompiler;
 import formatter.Formatter;
 import formatter.SequenceParserResult;
 import provider.NumbersProvider;
 import provider.SequencesProvider;
+import sequence.Sequence;
+import sequence.SequenceAllocator;
 import tools.Constants;
 import tools.Validator;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public abstract class Executor<T> {
 
-    private static final int THREADS_COUNT = 16;
-    static final ExecutorService executorService = Executors.newFixedThreadPool(THREADS_COUNT);
-
     // If sequence contains less items then threshold, it would be compute in the caller thread.
     // Else it would be done parallel.
     static final int THRESHOLD = 10000;
 
-    double[] sequence;
+    // Very long sequences are divided to batches longer than threshold, so count of batches is not more than this.
+    static final int MAX_BATCHES = 1 << 16;
+
+    Sequence sequence;
+
+    // Allocator of results of `map()`, it decides, which of them are stored off-heap.
+    SequenceAllocator allocator = new SequenceAllocator();
+
+    // Engine, which computes batches of long sequences in parallel.
+    ExecutionEngine engine = ForkJoinEngine.getDefault();
+
+    // Policy, which decides, how sequence is divided to tasks, and its decision for the last computed sequence.
+    SplitPolicy splitPolicy = SplitPolicy.getDefault();
+    SplitPolicy.Split lastSplit;
     public final List<String> errors = new ArrayList<>();
 
     final Calculator calculator;
@@ -33,7 +46,14 @@ public abstract class Executor<T> {
     String[] lambdaVariableNames;
     String lambdaExpression;
 
-    boolean forceStop = false;
+    // Lambda compiled and optimized once on validation, its arguments are bound by the index in `lambdaVariableNames`.
+    Expression lambda;
+
+    // Tier of compilation of lambda to operator, which is applied to the elements.
+    LambdaCompiler.Tier tier = LambdaCompiler.DEFAULT_TIER;
+
+    // Run, which this function belongs to, loops stop, when it's stopped.
+    ExecutionContext context = new ExecutionContext();
 
     public Executor(Calculator calculator, SequencesProvider sequencesProvider, NumbersProvider numbersProvider) {
         this.calculator = calculator;
@@ -54,15 +74,47 @@ public abstract class Executor<T> {
     public abstract T compute();
 
     public void stop() {
-        this.forceStop = true;
+        context.cancel();
+    }
+
+    public void setContext(ExecutionContext context) {
+        this.context = context;
+    }
+
+    public void setTier(LambdaCompiler.Tier tier) {
+        this.tier = tier;
+    }
+
+    public void setAllocator(SequenceAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    public void setEngine(ExecutionEngine engine) {
+        this.engine = engine;
+    }
+
+    public void setSplitPolicy(SplitPolicy splitPolicy) {
+        this.splitPolicy = splitPolicy;
+    }
+
+    // Decision of split policy for the last computed sequence, it's null if sequence was not split.
+    public SplitPolicy.Split getLastSplit() {
+        return lastSplit;
     }
 
     boolean setLambdaExpression(String lambdaExpression) {
+        this.lambda = null;
+
         if (Validator.isValidLambdaExpression(calculator,
                 lambdaExpression,
                 lambdaVariableNames)
         ) {
             this.lambdaExpression = lambdaExpression;
+            this.lambda = calculator.compile(lambdaExpression, lambdaVariableNames);
+        }
+
+        if (lambda != null) {
+            this.lambda = ExpressionOptimizer.optimize(lambda);
             return true;
         } else {
             appendError("Cannot read lambda expression");
@@ -70,6 +122,13 @@ public abstract class Executor<T> {
         }
     }
 
+    // Lambda of parsed program, which is already built from its tree.
+    void setLambda(String[] lambdaVariableNames, Expression lambda) {
+        this.lambdaVariableNames = lambdaVariableNames;
+        this.lambdaExpression = null;
+        this.lambda = ExpressionOptimizer.optimize(lambda);
+    }
+
     // check if input sequence is kept in variable
     boolean handleVariable(String token) {
         if (Validator.isNameAvailable(token)) {
@@ -106,9 +165,9 @@ public abstract class Executor<T> {
     boolean handleMap(String token) {
         if (token.startsWith(Constants.MAP)) {
             token = token.substring(3);
-            MapExecutor nestedExecutor = new MapExecutor(calculator, sequencesProvider, numbersProvider);
+            MapExecutor nestedExecutor = newMapExecutor();
             if (nestedExecutor.validate(token.trim())) {
-                this.sequence = nestedExecutor.compute();
+                this.sequence = handleNestedMap(nestedExecutor);
                 return true;
             } else {
                 return false;
@@ -118,6 +177,31 @@ public abstract class Executor<T> {
         }
     }
 
+    // Executor of `map()`, which is input of this function, with the same settings.
+    public MapExecutor newMapExecutor() {
+        MapExecutor nestedExecutor = new MapExecutor(calculator, sequencesProvider, numbersProvider);
+        nestedExecutor.setTier(tier);
+        nestedExecutor.setAllocator(allocator);
+        nestedExecutor.setEngine(engine);
+        nestedExecutor.setSplitPolicy(splitPolicy);
+        nestedExecutor.setContext(context);
+        return nestedExecutor;
+    }
+
+    // Sequence of results of nested `map()`. It's not computed separately, its lambda is applied to chunks
+    // of elements, when this function reads them, so no intermediate sequence is allocated.
+    Sequence handleNestedMap(MapExecutor nestedExecutor) {
+        return nestedExecutor.toSequence();
+    }
+
+    static long getBatchSize(long length, long threshold) {
+        return Math.max(threshold, (length + MAX_BATCHES - 1) / MAX_BATCHES);
+    }
+
+    static int getBatchesCount(long length, long batchSize) {
+        return (int) ((length + batchSize - 1) / batchSize);
+    }
+
     void appendError(String error) {
         errors.add(error);
     }
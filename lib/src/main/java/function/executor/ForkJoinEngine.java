@@ -0,0 +1,105 @@
+package function.executor;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+// Engine, which splits range of batches in halves recursively, until there are a few tasks for every thread,
+// and balances them between threads by work stealing.
+// Engine, which is called from its own thread, runs batches in the same pool, so thread helps to process them
+// instead of being blocked, and functions could be nested without exhausting threads.
+// Threads of pool are daemons, so they don't keep application running, if engine is not shut down.
+public final class ForkJoinEngine implements ExecutionEngine {
+
+    // Count of threads of default engine, by default it's the count of available processors.
+    // It could be changed with `-Dinterpreter.engine.parallelism=N`.
+    static final int DEFAULT_PARALLELISM = Integer.getInteger(
+            "interpreter.engine.parallelism",
+            Runtime.getRuntime().availableProcessors());
+
+    // Count of tasks for every thread, so threads, which are done earlier, could steal work from others.
+    private static final int TASKS_PER_THREAD = 4;
+
+    private static final ForkJoinEngine DEFAULT = new ForkJoinEngine(DEFAULT_PARALLELISM);
+
+    private final ForkJoinPool pool;
+
+    public ForkJoinEngine(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    // Engine shared by all interpreters, which are not given their own one.
+    public static ForkJoinEngine getDefault() {
+        return DEFAULT;
+    }
+
+    @Override
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public void forEachBatch(int count, IntConsumer action) {
+        if (count <= 0) {
+            return;
+        }
+
+        int tasksCount = getParallelism() * TASKS_PER_THREAD;
+        BatchTask task = new BatchTask(0, count, Math.max(1, count / tasksCount), action);
+
+        if (ForkJoinTask.getPool() == pool) {
+            task.invoke();
+        } else {
+            pool.invoke(task);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    // Tasks are never serialized.
+    @SuppressWarnings("serial")
+    private static final class BatchTask extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+        private final int maxLength;
+        private final IntConsumer action;
+
+        BatchTask(int from, int to, int maxLength, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.maxLength = maxLength;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= maxLength) {
+                for (int i = from; i < to; i++) {
+                    action.accept(i);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                BatchTask right = new BatchTask(middle, to, maxLength, action);
+                right.fork();
+
+                // Unlike `invokeAll()`, right half is joined even if the left one fails,
+                // so batches are not running, when exception is thrown to the caller.
+                try {
+                    new BatchTask(from, middle, maxLength, action).invoke();
+                } catch (RuntimeException | Error e) {
+                    right.quietlyJoin();
+                    throw e;
+                }
+                right.join();
+            }
+        }
+    }
+}
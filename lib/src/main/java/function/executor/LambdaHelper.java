@@ -8,9 +8,12 @@ class LambdaHelper {
             return null;
         }
 
-        return functionString.substring(separatorIndex + 1, functionString.length() - 1)
-                .replace("- >", "->")
-                .trim();
+        return cleanLambda(functionString.substring(separatorIndex + 1, functionString.length() - 1));
+    }
+
+    // Arrow could be split by spaces
+    String cleanLambda(String lambda) {
+        return lambda.replace("- >", "->").trim();
     }
 
     // Extract lambda expression from input string
@@ -1,18 +1,31 @@
 package function.executor;
 
 import calculator.Calculator;
+import calculator.Expression;
+import calculator.LambdaCompiler;
+import calculator.RpnProgram;
 import provider.NumbersProvider;
 import provider.SequencesProvider;
+import sequence.Sequence;
+import sequence.WritableSequence;
 import tools.Constants;
 import tools.Validator;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.*;
+import java.util.function.DoubleUnaryOperator;
 
-public class MapExecutor extends Executor<double[]> {
+public class MapExecutor extends Executor<Sequence> {
+
+    // Vectorized mode evaluates lambda with Calculator for chunks of elements operation by operation.
+    // It's used for sequences with at least one full chunk, and could be disabled with `-Dinterpreter.map.vectorized=false`.
+    static final boolean VECTORIZED_BY_DEFAULT = !"false".equalsIgnoreCase(System.getProperty("interpreter.map.vectorized"));
+
+    private DoubleUnaryOperator mapper;
+    private RpnProgram program;
+    private boolean vectorized = VECTORIZED_BY_DEFAULT;
+
+    // Input sequence with lambdas of nested maps applied to it, it's read while output is computed.
+    private Sequence input;
+    private WritableSequence output;
 
     public MapExecutor(Calculator calculator,
                        SequencesProvider sequencesProvider,
@@ -42,72 +55,83 @@ public class MapExecutor extends Executor<double[]> {
         return handleVariable(sequence) || handleMap(sequence) || handleSequence(sequence);
     }
 
+    // Function of parsed program, its input sequence and lambda are already read,
+    // argument of lambda is bound by index 0.
+    public void prepare(Sequence sequence, String lambdaVariableName, Expression lambda) {
+        setLambda(new String[]{lambdaVariableName}, lambda);
+        compileLambda();
+        this.sequence = sequence;
+    }
+
     @Override
-    public double[] compute() {
-        if (sequence.length < THRESHOLD) {
-            computeSync();
+    public WritableSequence compute() {
+        // Input sequence is not changed, results are written to the new sequence.
+        long length = sequence.length();
+        input = toSequence();
+        output = allocator.allocate(length);
+
+        // Prefix is computed in the caller thread first, its duration is the measured cost of elements.
+        long sampleLength = splitPolicy.getSampleLength(length);
+        long start = System.nanoTime();
+        computeRange(0, sampleLength);
+        lastSplit = splitPolicy.split(length, sampleLength, System.nanoTime() - start, 1, engine.getParallelism());
+
+        if (lastSplit.isParallel) {
+            computeAsync(sampleLength, length);
         } else {
-            computeAsync();
+            computeRange(sampleLength, length);
         }
-        return sequence;
-    }
 
-    private void computeSync() {
-        Map<String, String> variables = new HashMap<>();
-        for (int i = 0; i < sequence.length; i++) {
-            variables.put(lambdaVariableNames[0], String.valueOf(sequence[i]));
-            Double item = calculator.calc(lambdaExpression, variables);
-            if (item != null) {
-                sequence[i] = item;
-            }
-        }
+        WritableSequence result = output;
+        input = null;
+        output = null;
+        return result;
     }
 
-    private void computeAsync() {
-        int operationsCount = (sequence.length / THRESHOLD) + 1;
-        List<Runnable> operations = new ArrayList<>();
-
-        for (int operationIndex = 0; operationIndex < operationsCount; operationIndex++) {
-            final int index = operationIndex;
-            operations.add(() -> processBatch(index));
-        }
-
-        List<Future<?>> futures = new ArrayList<>(operations.size());
+    // Lambda of nested `map()` is applied to chunk of elements right before lambda of this map,
+    // so chain of maps is computed in one pass to one output sequence in the same mode.
+    @Override
+    public MapExecutor newMapExecutor() {
+        MapExecutor nestedExecutor = super.newMapExecutor();
+        nestedExecutor.setVectorized(vectorized);
+        return nestedExecutor;
+    }
 
-        for (Runnable runnable : operations) {
-            futures.add(executorService.submit(runnable));
-        }
+    // Lazy sequence of results, lambda is applied to elements, when they are read.
+    public Sequence toSequence() {
+        return new MappedSequence(sequence, lambda, mapper, calculator, isVectorized() ? program : null);
+    }
 
-        for (Future<?> future : futures) {
-            try {
-                future.get();
-            } catch (InterruptedException | ExecutionException e) {
-                return;
-            }
-        }
+    public void setVectorized(boolean vectorized) {
+        this.vectorized = vectorized;
     }
 
-    // Process batch of operations.
-    // Modify input sequence.
-    private void processBatch(final int operationIndex) {
-        Map<String, String> variables = new HashMap<>();
+    private boolean isVectorized() {
+        return vectorized && program != null && sequence.length() >= Calculator.CHUNK_SIZE;
+    }
 
-        for (int i = 0; i < THRESHOLD; i++) {
-            final int itemIndex = i + (THRESHOLD * operationIndex);
+    // Elements [from, to) are divided to tasks, which are computed in parallel.
+    // Exception of engine is thrown to the caller, so incomplete output is never returned as result.
+    private void computeAsync(long from, long to) {
+        long taskLength = lastSplit.taskLength;
 
-            if (itemIndex >= sequence.length || forceStop) {
-                return;
+        engine.forEachBatch(getBatchesCount(to - from, taskLength), index -> {
+            long start = from + taskLength * index;
+            if (!context.isStopped()) {
+                computeRange(start, Math.min(start + taskLength, to));
             }
+        });
+    }
 
-            variables.put(lambdaVariableNames[0], String.valueOf(sequence[itemIndex]));
-            Double item = calculator.calc(lambdaExpression, variables);
+    // Elements are read by chunks to the buffer, mapped in place and written to `output`.
+    private void computeRange(long from, long to) {
+        double[] buffer = new double[(int) Math.min(Sequence.CHUNK_SIZE, to - from)];
 
-            if (item != null) {
-                sequence[itemIndex] = item;
-            } else {
-                System.out.println("Cannot calc " + lambdaExpression + " for item " + sequence[itemIndex]);
-                System.out.println("item at " + itemIndex + " is null");
-            }
+        for (long start = from; start < to && !context.isStopped(); start += buffer.length) {
+            int length = (int) Math.min(buffer.length, to - start);
+            input.read(start, buffer, 0, length);
+            output.write(start, buffer, 0, length);
+            context.consume(length);
         }
     }
 
@@ -121,6 +145,16 @@ public class MapExecutor extends Executor<double[]> {
             return false;
         }
 
-        return setLambdaExpression(lambdaTokens[1]);
+        if (setLambdaExpression(lambdaTokens[1])) {
+            compileLambda();
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    private void compileLambda() {
+        mapper = LambdaCompiler.compileUnary(lambda, tier);
+        program = RpnProgram.of(lambda, lambdaVariableNames);
     }
 }
@@ -0,0 +1,61 @@
+package function.executor;
+
+import calculator.Calculator;
+import calculator.Expression;
+import calculator.RpnProgram;
+import sequence.Sequence;
+
+import java.util.function.DoubleUnaryOperator;
+
+// Sequence of results of `map()`, which are computed when they are read.
+// Chunk is read from the source and lambda is applied to it in place, so chain of maps is applied
+// to every chunk while it's in cache, without passes over the whole sequence and intermediate arrays.
+final class MappedSequence extends Sequence {
+
+    final Sequence source;
+
+    // Lambda, which is applied to elements, `mapper` is compiled from it.
+    final Expression lambda;
+
+    private final DoubleUnaryOperator mapper;
+    private final Calculator calculator;
+
+    // Program of lambda, if it's evaluated for whole chunk at once, else null.
+    private final RpnProgram program;
+
+    MappedSequence(Sequence source,
+                   Expression lambda,
+                   DoubleUnaryOperator mapper,
+                   Calculator calculator,
+                   RpnProgram program) {
+        this.source = source;
+        this.lambda = lambda;
+        this.mapper = mapper;
+        this.calculator = calculator;
+        this.program = program;
+    }
+
+    @Override
+    public long length() {
+        return source.length();
+    }
+
+    @Override
+    public double get(long index) {
+        return mapper.applyAsDouble(source.get(index));
+    }
+
+    @Override
+    public void read(long from, double[] buffer, int offset, int length) {
+        source.read(from, buffer, offset, length);
+
+        if (program != null) {
+            calculator.evaluate(program, buffer, buffer, offset, offset + length);
+            return;
+        }
+
+        for (int i = offset; i < offset + length; i++) {
+            buffer[i] = mapper.applyAsDouble(buffer[i]);
+        }
+    }
+}
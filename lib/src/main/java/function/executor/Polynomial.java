@@ -0,0 +1,262 @@
+package function.executor;
+
+import calculator.Expression;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+// Polynomial of one variable with exact coefficients: p(x) = (c0 + c1 * x + c2 * x^2 + ...) / 2^shift.
+// Lambda is converted to polynomial only if every operation of it is exact in doubles for all integers of the range,
+// so polynomial gives the same values, which would be computed for elements one by one.
+final class Polynomial {
+
+    // Value of every subexpression should fit to the mantissa of double.
+    private static final BigInteger MAX_NUMERATOR = BigInteger.ONE.shiftLeft(53);
+
+    // Values with larger shift could be subnormal doubles.
+    private static final int MAX_SHIFT = 960;
+
+    static final int MAX_DEGREE = 64;
+
+    private static final Polynomial ARGUMENT = new Polynomial(new BigInteger[]{BigInteger.ZERO, BigInteger.ONE}, 0);
+
+    final BigInteger[] coefficients;
+    final int shift;
+
+    private Polynomial(BigInteger[] coefficients, int shift) {
+        this.coefficients = coefficients;
+        this.shift = shift;
+    }
+
+    // Convert lambda of `map()` for elements of range {from, to} to polynomial.
+    // Returns null if lambda is not polynomial or some of its operations is not exact for elements of range.
+    static Polynomial of(Expression lambda, long from, long to) {
+        return of(lambda, ARGUMENT, from, to);
+    }
+
+    // The same, but argument of lambda is value of `argument` polynomial for elements of range,
+    // so chain of maps is converted to one polynomial.
+    static Polynomial of(Expression lambda, Polynomial argument, long from, long to) {
+        BigInteger max = BigInteger.valueOf(Math.max(Math.abs(from), Math.abs(to)));
+        return convert(lambda, argument, max);
+    }
+
+    int degree() {
+        return coefficients.length - 1;
+    }
+
+    boolean isZero() {
+        return coefficients.length == 1 && coefficients[0].signum() == 0;
+    }
+
+    // Numerator of value at x, value is numerator / 2^shift.
+    BigInteger evaluate(BigInteger x) {
+        BigInteger result = BigInteger.ZERO;
+        for (int i = coefficients.length - 1; i >= 0; i--) {
+            result = result.multiply(x).add(coefficients[i]);
+        }
+        return result;
+    }
+
+    // Numerator of sum of values for integers from `from` to `to`, it's computed with Newton's forward differences:
+    // sum = delta^0 p(from) * C(n, 1) + delta^1 p(from) * C(n, 2) + ..., where n is count of integers.
+    BigInteger sum(long from, long to) {
+        int degree = degree();
+        BigInteger[] differences = new BigInteger[degree + 1];
+
+        for (int i = 0; i <= degree; i++) {
+            differences[i] = evaluate(BigInteger.valueOf(from).add(BigInteger.valueOf(i)));
+        }
+
+        BigInteger count = BigInteger.valueOf(to).subtract(BigInteger.valueOf(from)).add(BigInteger.ONE);
+        BigInteger binomial = BigInteger.ONE;
+        BigInteger result = BigInteger.ZERO;
+
+        for (int k = 0; k <= degree; k++) {
+            // C(n, k + 1) = C(n, k) * (n - k) / (k + 1)
+            binomial = binomial.multiply(count.subtract(BigInteger.valueOf(k))).divide(BigInteger.valueOf(k + 1));
+            result = result.add(differences[0].multiply(binomial));
+
+            for (int i = 0; i < degree - k; i++) {
+                differences[i] = differences[i + 1].subtract(differences[i]);
+            }
+        }
+
+        return result;
+    }
+
+    private static Polynomial convert(Expression expression, Polynomial argument, BigInteger max) {
+        Polynomial result;
+
+        if (expression instanceof Expression.Constant) {
+            result = constant(((Expression.Constant) expression).value);
+        } else if (expression instanceof Expression.Argument) {
+            result = ((Expression.Argument) expression).index == 0 ? argument : null;
+        } else if (expression instanceof Expression.Negation) {
+            result = negate(convert(((Expression.Negation) expression).operand, argument, max));
+        } else if (expression instanceof Expression.Operation) {
+            Expression.Operation operation = (Expression.Operation) expression;
+            Polynomial left = convert(operation.left, argument, max);
+            Polynomial right = left != null ? convert(operation.right, argument, max) : null;
+
+            if (right == null) {
+                return null;
+            } else if (operation instanceof Expression.Addition) {
+                result = add(left, right);
+            } else if (operation instanceof Expression.Subtraction) {
+                result = add(left, negate(right));
+            } else if (operation instanceof Expression.Multiplication) {
+                result = multiply(left, right);
+            } else if (operation instanceof Expression.Division) {
+                result = divide(left, right);
+            } else {
+                result = power(left, right);
+            }
+        } else {
+            result = null;
+        }
+
+        return result != null && result.isExact(max) ? result : null;
+    }
+
+    // Values of polynomial are exact doubles for all x with |x| <= max.
+    private boolean isExact(BigInteger max) {
+        return shift <= MAX_SHIFT && degree() <= MAX_DEGREE && getBound(max).compareTo(MAX_NUMERATOR) <= 0;
+    }
+
+    // Sum of values for integers from `from` to `to` is exact in doubles, if it's computed one by one in any order.
+    boolean isSumExact(long from, long to) {
+        BigInteger max = BigInteger.valueOf(Math.max(Math.abs(from), Math.abs(to)));
+        BigInteger count = BigInteger.valueOf(to).subtract(BigInteger.valueOf(from)).add(BigInteger.ONE);
+        return getBound(max).multiply(count).compareTo(MAX_NUMERATOR) <= 0;
+    }
+
+    // Upper bound of absolute value of numerator for all x with |x| <= max.
+    private BigInteger getBound(BigInteger max) {
+        BigInteger bound = BigInteger.ZERO;
+        for (int i = coefficients.length - 1; i >= 0; i--) {
+            bound = bound.multiply(max).add(coefficients[i].abs());
+        }
+        return bound;
+    }
+
+    // Every finite double is integer multiplied by power of two.
+    private static Polynomial constant(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return null;
+        }
+
+        long bits = Double.doubleToRawLongBits(value);
+        int exponent = Math.getExponent(value);
+        long mantissa = bits & 0xFFFFFFFFFFFFFL;
+
+        if (exponent < Double.MIN_EXPONENT) {
+            exponent = Double.MIN_EXPONENT;
+        } else {
+            mantissa |= 1L << 52;
+        }
+
+        BigInteger numerator = BigInteger.valueOf(value < 0 ? -mantissa : mantissa);
+        int power = exponent - 52;
+
+        return power >= 0
+                ? create(new BigInteger[]{numerator.shiftLeft(power)}, 0)
+                : create(new BigInteger[]{numerator}, -power);
+    }
+
+    private static Polynomial negate(Polynomial p) {
+        if (p == null) {
+            return null;
+        }
+
+        BigInteger[] result = new BigInteger[p.coefficients.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = p.coefficients[i].negate();
+        }
+        return new Polynomial(result, p.shift);
+    }
+
+    private static Polynomial add(Polynomial a, Polynomial b) {
+        int shift = Math.max(a.shift, b.shift);
+        BigInteger[] result = new BigInteger[Math.max(a.coefficients.length, b.coefficients.length)];
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = a.coefficient(i).shiftLeft(shift - a.shift).add(b.coefficient(i).shiftLeft(shift - b.shift));
+        }
+        return create(result, shift);
+    }
+
+    private static Polynomial multiply(Polynomial a, Polynomial b) {
+        if (a.degree() + b.degree() > MAX_DEGREE) {
+            return null;
+        }
+
+        BigInteger[] result = new BigInteger[a.coefficients.length + b.coefficients.length - 1];
+        Arrays.fill(result, BigInteger.ZERO);
+
+        for (int i = 0; i < a.coefficients.length; i++) {
+            for (int j = 0; j < b.coefficients.length; j++) {
+                result[i + j] = result[i + j].add(a.coefficients[i].multiply(b.coefficients[j]));
+            }
+        }
+        return create(result, a.shift + b.shift);
+    }
+
+    // Division is exact only by power of two.
+    private static Polynomial divide(Polynomial a, Polynomial b) {
+        if (b.degree() != 0 || b.coefficients[0].abs().bitCount() != 1) {
+            return null;
+        }
+
+        BigInteger divisor = b.coefficients[0];
+        int power = divisor.abs().getLowestSetBit() - b.shift;
+        Polynomial result = divisor.signum() < 0 ? negate(a) : a;
+
+        return power >= 0
+                ? create(result.coefficients, result.shift + power)
+                : multiply(result, create(new BigInteger[]{BigInteger.ONE.shiftLeft(-power)}, 0));
+    }
+
+    // Math.pow is exact only for integer base and exponent, if result could be represented by double.
+    private static Polynomial power(Polynomial base, Polynomial exponent) {
+        if (base.shift != 0 || exponent.shift != 0 || exponent.degree() != 0) {
+            return null;
+        }
+
+        BigInteger n = exponent.coefficients[0];
+        if (n.signum() < 0 || n.compareTo(BigInteger.valueOf(MAX_DEGREE)) > 0) {
+            return null;
+        }
+
+        Polynomial result = create(new BigInteger[]{BigInteger.ONE}, 0);
+        for (int i = 0; i < n.intValue() && result != null; i++) {
+            result = multiply(result, base);
+        }
+        return result;
+    }
+
+    private BigInteger coefficient(int index) {
+        return index < coefficients.length ? coefficients[index] : BigInteger.ZERO;
+    }
+
+    // Remove zero coefficients of higher powers and common powers of two of numerators and denominator.
+    private static Polynomial create(BigInteger[] coefficients, int shift) {
+        int length = coefficients.length;
+        while (length > 1 && coefficients[length - 1].signum() == 0) {
+            length--;
+        }
+
+        int commonPower = shift;
+        for (int i = 0; i < length && commonPower > 0; i++) {
+            if (coefficients[i].signum() != 0) {
+                commonPower = Math.min(commonPower, coefficients[i].getLowestSetBit());
+            }
+        }
+
+        BigInteger[] result = new BigInteger[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = coefficients[i].shiftRight(commonPower);
+        }
+        return new Polynomial(result, shift - commonPower);
+    }
+}
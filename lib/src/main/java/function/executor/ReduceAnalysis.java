@@ -0,0 +1,138 @@
+package function.executor;
+
+import calculator.Expression;
+
+// Analysis of lambda `a b -> f(a, b)` of `reduce()`, which decides, how sequence could be reduced in parallel.
+//
+// Fold of lambda `a op g(b)`, where `op` is one of + - * / and `g` doesn't depend on `a`, is
+// s0 op g(s1) op g(s2) op ... = s0 op (g(s1) combine g(s2) combine ...), where `combine` is + for + and -,
+// and * for * and /. So batches after the first one are reduced with `combine` independently, and their results
+// are combined in fixed order, first batch is folded with lambda itself. Other lambdas are folded sequentially.
+//
+// Analysis is syntactic, it doesn't prove properties of arbitrary lambdas. Lambda is associative only if it is
+// exactly `a + b` or `a * b` (operands in any order). Lambda is commutative, if it is the same tree, when arguments
+// are swapped, operands of + and * could be in any order, so `(a + b) / 2` is commutative, but `a - b` is not.
+public final class ReduceAnalysis {
+
+    // Operations of lambda, `NONE` if lambda doesn't have form `a op g(b)`.
+    enum Operation {NONE, ADD, SUBTRACT, MULTIPLY, DIVIDE}
+
+    // f(f(x, y), z) = f(x, f(y, z)) for all real numbers.
+    public final boolean isAssociative;
+
+    // f(x, y) = f(y, x) for all numbers.
+    public final boolean isCommutative;
+
+    // Fold is `a op g(b)`, so batches could be reduced in parallel.
+    public final boolean isParallel;
+
+    // Lambda doesn't depend on `a`, so result of fold is the lambda applied to the last element.
+    public final boolean isLastOnly;
+
+    final Operation operation;
+
+    // Expression of `g(b)`, it depends only on the second argument.
+    final Expression element;
+
+    private ReduceAnalysis(boolean isAssociative,
+                           boolean isCommutative,
+                           boolean isLastOnly,
+                           Operation operation,
+                           Expression element) {
+        this.isAssociative = isAssociative;
+        this.isCommutative = isCommutative;
+        this.isParallel = operation != Operation.NONE;
+        this.isLastOnly = isLastOnly;
+        this.operation = operation;
+        this.element = element;
+    }
+
+    static ReduceAnalysis analyze(Expression lambda) {
+        boolean isLastOnly = !uses(lambda, 0);
+
+        if (!(lambda instanceof Expression.Operation)) {
+            return new ReduceAnalysis(false, isSwapped(lambda, lambda), isLastOnly, Operation.NONE, null);
+        }
+
+        Expression.Operation operation = (Expression.Operation) lambda;
+        boolean isArguments = isArgument(operation.left, 0) && isArgument(operation.right, 1)
+                || isArgument(operation.left, 1) && isArgument(operation.right, 0);
+        boolean isSymmetric = operation instanceof Expression.Addition || operation instanceof Expression.Multiplication;
+
+        // `a op g(b)`, or `g(b) op a` for operations, which don't depend on order of operands.
+        Expression element = null;
+        if (isArgument(operation.left, 0) && !uses(operation.right, 0)) {
+            element = operation.right;
+        } else if (isSymmetric && isArgument(operation.right, 0) && !uses(operation.left, 0)) {
+            element = operation.left;
+        }
+
+        boolean isAssociative = isArguments && isSymmetric;
+        return new ReduceAnalysis(isAssociative, isSwapped(lambda, lambda), isLastOnly,
+                element != null ? getOperation(operation) : Operation.NONE, element);
+    }
+
+    @Override
+    public String toString() {
+        String kind = isAssociative ? "associative" : isCommutative ? "commutative" : "unknown";
+        return kind + (isParallel ? ", parallel" : ", sequential") + (isLastOnly ? ", last element only" : "");
+    }
+
+    private static Operation getOperation(Expression.Operation operation) {
+        if (operation instanceof Expression.Addition) {
+            return Operation.ADD;
+        } else if (operation instanceof Expression.Subtraction) {
+            return Operation.SUBTRACT;
+        } else if (operation instanceof Expression.Multiplication) {
+            return Operation.MULTIPLY;
+        } else if (operation instanceof Expression.Division) {
+            return Operation.DIVIDE;
+        } else {
+            return Operation.NONE;
+        }
+    }
+
+    // `swapped` is the same tree as `expression` with swapped arguments,
+    // operands of + and * are compared in both orders.
+    private static boolean isSwapped(Expression expression, Expression swapped) {
+        if (expression instanceof Expression.Constant) {
+            return swapped instanceof Expression.Constant
+                    && Double.doubleToLongBits(((Expression.Constant) expression).value)
+                    == Double.doubleToLongBits(((Expression.Constant) swapped).value);
+        } else if (expression instanceof Expression.Argument) {
+            return swapped instanceof Expression.Argument
+                    && ((Expression.Argument) expression).index != ((Expression.Argument) swapped).index;
+        } else if (expression instanceof Expression.Negation) {
+            return swapped instanceof Expression.Negation
+                    && isSwapped(((Expression.Negation) expression).operand, ((Expression.Negation) swapped).operand);
+        } else if (expression.getClass() != swapped.getClass()) {
+            return false;
+        }
+
+        Expression.Operation operation = (Expression.Operation) expression;
+        Expression.Operation swappedOperation = (Expression.Operation) swapped;
+        boolean isSymmetric = operation instanceof Expression.Addition || operation instanceof Expression.Multiplication;
+
+        return isSwapped(operation.left, swappedOperation.left) && isSwapped(operation.right, swappedOperation.right)
+                || isSymmetric
+                && isSwapped(operation.left, swappedOperation.right) && isSwapped(operation.right, swappedOperation.left);
+    }
+
+    private static boolean isArgument(Expression expression, int index) {
+        return expression instanceof Expression.Argument && ((Expression.Argument) expression).index == index;
+    }
+
+    // Expression depends on the argument with given index.
+    private static boolean uses(Expression expression, int index) {
+        if (expression instanceof Expression.Argument) {
+            return ((Expression.Argument) expression).index == index;
+        } else if (expression instanceof Expression.Negation) {
+            return uses(((Expression.Negation) expression).operand, index);
+        } else if (expression instanceof Expression.Operation) {
+            Expression.Operation operation = (Expression.Operation) expression;
+            return uses(operation.left, index) || uses(operation.right, index);
+        } else {
+            return false;
+        }
+    }
+}
@@ -1,21 +1,32 @@
 package function.executor;
 
 import calculator.Calculator;
+import calculator.Expression;
+import calculator.LambdaCompiler;
 import provider.NumbersProvider;
 import provider.SequencesProvider;
+import sequence.Sequence;
 import tools.Constants;
 import tools.Validator;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.IntConsumer;
 
 public class ReduceExecutor extends Executor<Double> {
 
+    // Sum and product of polynomials over ranges are computed without iterating elements.
+    // It could be disabled with `-Dinterpreter.reduce.closedform=false`.
+    static final boolean CLOSED_FORM_BY_DEFAULT = !"false".equalsIgnoreCase(System.getProperty("interpreter.reduce.closedform"));
+
     private Double baseElement;
+    private DoubleBinaryOperator reducer;
+    private boolean closedForm = CLOSED_FORM_BY_DEFAULT;
+
+    // Lambda `a op g(b)` is split to `g(b)`, which is applied to elements of batches after the first one,
+    // and `combine`, which combines them, see ReduceAnalysis.
+    private ReduceAnalysis analysis;
+    private DoubleBinaryOperator elementMapper;
+    private DoubleBinaryOperator combiner;
 
     public ReduceExecutor(Calculator calculator,
                           SequencesProvider sequencesProvider,
@@ -62,84 +73,162 @@ public class ReduceExecutor extends Executor<Double> {
         }
     }
 
+    // Function of parsed program, its input sequence, base element and lambda are already read,
+    // arguments of lambda are bound by indexes 0 and 1.
+    public void prepare(Sequence sequence, double baseElement, String[] lambdaVariableNames, Expression lambda) {
+        setLambda(lambdaVariableNames, lambda);
+        compileLambda();
+        this.sequence = sequence;
+        this.baseElement = baseElement;
+    }
+
     @Override
     public Double compute() {
-        if (sequence.length < THRESHOLD) {
-            return computeSync();
-        } else {
-            return computeAsync();
+        // Split is decided only by `computeAsync()`, decision for the previous sequence is not kept.
+        lastSplit = null;
+        Double value = closedForm ? ClosedFormReduction.reduce(sequence, lambda, splitPolicy.threshold) : null;
+
+        if (value != null) {
+            return reducer.applyAsDouble(baseElement, value);
         }
+
+        long length = sequence.length();
+
+        // Lambda ignores accumulated value, so only the last element matters.
+        if (analysis.isLastOnly) {
+            double last = sequence.get(length - 1);
+            value = length > 1 ? reducer.applyAsDouble(last, last) : last;
+            return reducer.applyAsDouble(baseElement, value);
+        }
+
+        // Lambdas, which could not be split, are folded sequentially, because result of combining of batches
+        // with them would be wrong (`a - b` for example).
+        return analysis.isParallel && length >= splitPolicy.threshold ? computeAsync() : computeSync();
     }
 
-    private Double computeAsync() {
-        int operationsCount = (sequence.length / THRESHOLD) + 1;
+    public void setClosedForm(boolean closedForm) {
+        this.closedForm = closedForm;
+    }
 
-        List<Future<Double>> futures = new ArrayList<>(operationsCount);
-        List<Double> results = new ArrayList<>();
+    public ReduceAnalysis getAnalysis() {
+        return analysis;
+    }
 
-        // Divide sequence to a few batches and reduce them asynchronously.
-        for (int operationIndex = 0; operationIndex < operationsCount; operationIndex++) {
-            final int index = operationIndex;
-            futures.add(executorService.submit(() -> processBatch(index)));
-        }
+    private Double computeAsync() {
+        // Divide sequence to a few batches and reduce them in parallel.
+        // Result depends on batches, so they depend only on length of sequence.
+        long length = sequence.length();
+        long batchSize = getBatchSize(length, splitPolicy.threshold);
+        double[] batchResults = new double[getBatchesCount(length, batchSize)];
+
+        // The first batch is reduced in the caller thread, its duration is the measured cost of elements.
+        long start = System.nanoTime();
+        batchResults[0] = processBatch(0, batchSize);
+        lastSplit = splitPolicy.split(length, batchSize, System.nanoTime() - start, batchSize, engine.getParallelism());
+
+        // Task reduces a few whole batches.
+        int batchesPerTask = (int) Math.min(batchResults.length, lastSplit.taskLength / batchSize);
+        IntConsumer task = index -> {
+            int to = (int) Math.min(batchResults.length, 1 + (long) batchesPerTask * (index + 1));
+            for (int i = 1 + batchesPerTask * index; i < to; i++) {
+                batchResults[i] = processBatch(i, batchSize);
+            }
+        };
+
+        int tasksCount = getBatchesCount(batchResults.length - 1, batchesPerTask);
 
-        for (Future<Double> future : futures) {
-            try {
-                Double result = future.get();
-                if (result != null) { results.add(result); }
-            } catch (InterruptedException | ExecutionException e) {
-                return null;
+        // Exception of engine is thrown to the caller, so it's not hidden by error of expression.
+        if (lastSplit.isParallel) {
+            engine.forEachBatch(tasksCount, task);
+        } else {
+            for (int i = 0; i < tasksCount; i++) {
+                task.accept(i);
             }
         }
 
-        // Take all results and reduce them with base element synchronously.
-        this.sequence = new double[results.size()];
+        // Results of stopped batches are incomplete.
+        if (context.isStopped()) {
+            return null;
+        }
 
-        for (int i = 0; i < sequence.length; i++) {
-            this.sequence[i] = results.get(i);
+        // Results of batches after the first one are combined by balanced tree of fixed shape,
+        // so result doesn't depend on order, in which batches were finished.
+        double value = batchResults[0];
+        if (batchResults.length > 1) {
+            value = apply(analysis.operation, value, combine(batchResults, 1, batchResults.length));
         }
 
-        return computeSync();
+        return reducer.applyAsDouble(baseElement, value);
     }
 
-    private Double computeSync() {
-        Map<String, String> variables = new HashMap<>();
+    private double combine(double[] results, int from, int to) {
+        if (to - from == 1) {
+            return results[from];
+        }
 
-        double value = sequence[0];
+        int middle = (from + to) >>> 1;
+        return combiner.applyAsDouble(combine(results, from, middle), combine(results, middle, to));
+    }
 
-        for (int counter = 1; counter < sequence.length; counter++) {
-            variables.put(lambdaVariableNames[0], String.valueOf(value));
-            variables.put(lambdaVariableNames[1], String.valueOf(sequence[counter]));
-            value = calculator.calc(lambdaExpression, variables);
+    private static double apply(ReduceAnalysis.Operation operation, double a, double b) {
+        switch (operation) {
+            case ADD:
+                return a + b;
+            case SUBTRACT:
+                return a - b;
+            case MULTIPLY:
+                return a * b;
+            default:
+                return a / b;
         }
+    }
 
-        variables.put(lambdaVariableNames[0], String.valueOf(baseElement));
-        variables.put(lambdaVariableNames[1], String.valueOf(value));
+    private Double computeSync() {
+        double value = reduce(sequence.get(0), 1, sequence.length());
+        return context.isStopped() ? null : reducer.applyAsDouble(baseElement, value);
+    }
 
-        return calculator.calc(lambdaExpression, variables);
+    // The first batch is folded with lambda, others are folded with `combine` after `g` is applied to their elements.
+    private double processBatch(final int operationIndex, long batchSize) {
+        long from = batchSize * operationIndex;
+        long to = Math.min(from + batchSize, sequence.length());
+        return operationIndex == 0 ? reduce(sequence.get(from), from + 1, to) : reduceElements(from, to);
     }
 
-    private Double processBatch(final int operationIndex) {
+    private double reduceElements(long from, long to) {
+        double[] buffer = new double[(int) Math.min(Sequence.CHUNK_SIZE, to - from)];
+        double value = 0;
 
-        Map<String, String> variables = new HashMap<>();
-        int counter = THRESHOLD * operationIndex;
+        for (long start = from; start < to && !context.isStopped(); start += buffer.length) {
+            int length = (int) Math.min(buffer.length, to - start);
+            sequence.read(start, buffer, 0, length);
+            context.consume(length);
 
-        if (counter >= sequence.length) {
-            return null;
+            int i = 0;
+            if (start == from) {
+                value = elementMapper.applyAsDouble(0, buffer[0]);
+                i = 1;
+            }
+            for (; i < length; i++) {
+                value = combiner.applyAsDouble(value, elementMapper.applyAsDouble(0, buffer[i]));
+            }
         }
 
-        int limit = THRESHOLD * (operationIndex + 1);
-        double value = sequence[counter];
-        counter++;
+        return value;
+    }
 
-        while (counter < limit) {
-            if (counter >= sequence.length || forceStop) {
-                return value;
+    // Fold elements [from, to) into value, elements are read by chunks.
+    // If input is the result of `map()`, each chunk is mapped while it's read, so only chunk is kept in memory.
+    private double reduce(double value, long from, long to) {
+        double[] buffer = new double[(int) Math.min(Sequence.CHUNK_SIZE, Math.max(to - from, 0))];
+
+        for (long start = from; start < to && !context.isStopped(); start += buffer.length) {
+            int length = (int) Math.min(buffer.length, to - start);
+            sequence.read(start, buffer, 0, length);
+            context.consume(length);
+            for (int i = 0; i < length; i++) {
+                value = reducer.applyAsDouble(value, buffer[i]);
             }
-            variables.put(lambdaVariableNames[0], String.valueOf(value));
-            variables.put(lambdaVariableNames[1], String.valueOf(sequence[counter]));
-            value = calculator.calc(lambdaExpression, variables);
-            counter++;
         }
 
         return value;
@@ -170,6 +259,23 @@ public class ReduceExecutor extends Executor<Double> {
             }
         }
 
-        return setLambdaExpression(lambdaTokens[1]);
+        if (setLambdaExpression(lambdaTokens[1])) {
+            compileLambda();
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    private void compileLambda() {
+        reducer = LambdaCompiler.compileBinary(lambda, tier);
+        analysis = ReduceAnalysis.analyze(lambda);
+
+        if (analysis.isParallel) {
+            elementMapper = LambdaCompiler.compileBinary(analysis.element, tier);
+            boolean isSum = analysis.operation == ReduceAnalysis.Operation.ADD
+                    || analysis.operation == ReduceAnalysis.Operation.SUBTRACT;
+            combiner = isSum ? (a, b) -> a + b : (a, b) -> a * b;
+        }
     }
 }
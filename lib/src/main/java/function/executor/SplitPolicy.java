@@ -0,0 +1,107 @@
+package function.executor;
+
+import sequence.Sequence;
+
+// Decides, whether sequence is computed in parallel, and how many elements are computed by one task.
+//
+// Adaptive policy measures cost of elements on the prefix of sequence, which is computed first, and chooses tasks,
+// which take about target duration, so cheap lambdas are not split to tiny tasks and heavy ones are not run by one thread.
+// Fixed policy computes in parallel sequences with at least `threshold` elements, each task takes one batch.
+//
+// Default policy is adaptive with target duration from `-Dinterpreter.split.target.micros=N` (1 ms by default),
+// or fixed, if `-Dinterpreter.split.threshold=N` is set.
+public final class SplitPolicy {
+
+    private static final long DEFAULT_TARGET_MICROS = Long.getLong("interpreter.split.target.micros", 1000);
+    private static final Long FIXED_THRESHOLD = Long.getLong("interpreter.split.threshold");
+
+    // Count of elements, which are computed first to measure their cost.
+    static final int SAMPLE_LENGTH = Sequence.CHUNK_SIZE;
+
+    private static final SplitPolicy DEFAULT = FIXED_THRESHOLD != null
+            ? fixed(FIXED_THRESHOLD)
+            : adaptive(DEFAULT_TARGET_MICROS * 1000);
+
+    // Holder for decision about one sequence.
+    public static final class Split {
+
+        public final boolean isParallel;
+
+        // Count of elements computed by one task.
+        public final long taskLength;
+
+        // Measured cost of one element in nanoseconds, NaN if it was not measured.
+        public final double elementNanos;
+
+        Split(boolean isParallel, long taskLength, double elementNanos) {
+            this.isParallel = isParallel;
+            this.taskLength = taskLength;
+            this.elementNanos = elementNanos;
+        }
+
+        @Override
+        public String toString() {
+            return (isParallel ? "parallel" : "sequential") + ", " + taskLength + " elements per task, "
+                    + elementNanos + " ns per element";
+        }
+    }
+
+    // Sequences shorter than threshold are reduced by one fold, longer ones are divided to batches.
+    // Result of `reduce()` depends on batches, so they don't depend on measured cost.
+    public final long threshold;
+
+    // Target duration of task in nanoseconds, 0 for fixed policy.
+    public final long targetTaskNanos;
+
+    private SplitPolicy(long threshold, long targetTaskNanos) {
+        this.threshold = threshold;
+        this.targetTaskNanos = targetTaskNanos;
+    }
+
+    public static SplitPolicy adaptive(long targetTaskNanos) {
+        if (targetTaskNanos <= 0) {
+            throw new IllegalArgumentException("Target duration of task must be positive");
+        }
+        return new SplitPolicy(Executor.THRESHOLD, targetTaskNanos);
+    }
+
+    public static SplitPolicy fixed(long threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+        return new SplitPolicy(threshold, 0);
+    }
+
+    public static SplitPolicy getDefault() {
+        return DEFAULT;
+    }
+
+    public boolean isAdaptive() {
+        return targetTaskNanos > 0;
+    }
+
+    // Count of first elements of sequence, which should be computed in the caller thread to measure their cost.
+    long getSampleLength(long length) {
+        return isAdaptive() ? Math.min(length, SAMPLE_LENGTH) : 0;
+    }
+
+    // Split the rest of sequence of `length` elements after `sampleLength` first ones, which were computed in `sampleNanos`.
+    // Tasks are not shorter than `minTaskLength`.
+    Split split(long length, long sampleLength, long sampleNanos, long minTaskLength, int parallelism) {
+        long remaining = length - sampleLength;
+
+        if (!isAdaptive()) {
+            long taskLength = Math.max(minTaskLength, Executor.getBatchSize(length, threshold));
+            return new Split(length >= threshold, taskLength, Double.NaN);
+        }
+
+        double elementNanos = sampleLength > 0 ? Math.max(sampleNanos, 1) / (double) sampleLength : Double.NaN;
+        long taskLength = Double.isNaN(elementNanos) ? remaining : (long) Math.min(remaining, targetTaskNanos / elementNanos);
+
+        // Tasks should not be shorter than chunk, and there should not be too many of them.
+        taskLength = Math.max(taskLength, Math.max(minTaskLength, SAMPLE_LENGTH));
+        taskLength = Math.max(taskLength, (remaining + Executor.MAX_BATCHES - 1) / Executor.MAX_BATCHES);
+
+        return new Split(parallelism > 1 && remaining > taskLength, taskLength, elementNanos);
+    }
+}
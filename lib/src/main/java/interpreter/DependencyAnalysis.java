@@ -0,0 +1,95 @@
+package interpreter;
+
+import lexer.Lexer;
+import lexer.Token;
+import tools.Constants;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Dependencies between lines of program by variables, which they read and write.
+// Line `var name = ...` writes `name`, every identifier of line is read by it. Lambda arguments and words
+// of string constants are read too, so dependencies could be extra, but not missing.
+// Line depends on the previous line, if it reads variable written by that line, writes the same variable,
+// or writes variable read by that line.
+//
+// Level of line is 0 if it doesn't depend on other lines, otherwise 1 + max level of lines, which it depends on,
+// so lines of the same level could be executed at the same time, when all previous levels are done.
+final class DependencyAnalysis {
+
+    // Variable written by line, null if line doesn't write variable.
+    final String[] writes;
+
+    final int[] levels;
+    final int maxLevel;
+
+    // Program has at least two independent lines, which compute functions.
+    final boolean isParallel;
+
+    private DependencyAnalysis(String[] writes, int[] levels, int maxLevel, boolean isParallel) {
+        this.writes = writes;
+        this.levels = levels;
+        this.maxLevel = maxLevel;
+        this.isParallel = isParallel;
+    }
+
+    static DependencyAnalysis analyze(List<String> lines) {
+        int count = lines.size();
+        String[] writes = new String[count];
+        int[] levels = new int[count];
+        int maxLevel = 0;
+        boolean isParallel = false;
+
+        // Levels of lines, which compute functions.
+        Set<Integer> functionLevels = new HashSet<>();
+
+        // Level of the last line, which wrote variable, and max level of lines, which read it after that.
+        // Lines, which read it before, are before the last writer, so they are dependencies of it.
+        Map<String, Integer> writerLevels = new HashMap<>();
+        Map<String, Integer> readerLevels = new HashMap<>();
+
+        for (int i = 0; i < count; i++) {
+            List<Token> tokens = Lexer.tokenize(lines.get(i));
+            Set<String> reads = new HashSet<>();
+            boolean hasFunction = false;
+
+            for (int j = 0; j < tokens.size(); j++) {
+                Token token = tokens.get(j);
+
+                if (j == 1 && token.type == Token.Type.IDENTIFIER && tokens.get(0).text.equals(Constants.VARIABLE)) {
+                    writes[i] = token.text;
+                } else if (token.type == Token.Type.IDENTIFIER) {
+                    reads.add(token.text);
+                } else if (token.text.equals(Constants.MAP) || token.text.equals(Constants.REDUCE)) {
+                    hasFunction = true;
+                }
+            }
+
+            int level = 0;
+            for (String name : reads) {
+                level = Math.max(level, writerLevels.getOrDefault(name, -1) + 1);
+            }
+            if (writes[i] != null) {
+                level = Math.max(level, writerLevels.getOrDefault(writes[i], -1) + 1);
+                level = Math.max(level, readerLevels.getOrDefault(writes[i], -1) + 1);
+            }
+
+            for (String name : reads) {
+                readerLevels.merge(name, level, Math::max);
+            }
+            if (writes[i] != null) {
+                writerLevels.put(writes[i], level);
+                readerLevels.remove(writes[i]);
+            }
+
+            levels[i] = level;
+            maxLevel = Math.max(maxLevel, level);
+            isParallel |= hasFunction && !functionLevels.add(level);
+        }
+
+        return new DependencyAnalysis(writes, levels, maxLevel, isParallel);
+    }
+}
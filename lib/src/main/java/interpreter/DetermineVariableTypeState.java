@@ -4,22 +4,22 @@ import tools.Constants;
 
 public class DetermineVariableTypeState extends State {
 
-    DetermineVariableTypeState(Interpreter interpreter, State state) {
-        super(interpreter, state);
+    DetermineVariableTypeState(Execution execution, State state) {
+        super(execution, state);
     }
 
     @Override
     public boolean handleToken(String token) {
         if (token.equals(Constants.START_SEQUENCE)) {
-            interpreter.currentSequence.append(token);
-            interpreter.currentState = new ReadSequenceState(interpreter, this);
+            execution.currentSequence.append(token);
+            execution.currentState = new ReadSequenceState(execution, this);
             return true;
         } else if (token.equals(Constants.MAP)) {
-            interpreter.currentState = new ReadMapState(interpreter, this);
+            execution.currentState = new ReadMapState(execution, this);
             return true;
         } else {
-            interpreter.currentState = new ReadExpressionState(interpreter, this);
-            return interpreter.currentState.handleToken(token);
+            execution.currentState = new ReadExpressionState(execution, this);
+            return execution.currentState.handleToken(token);
         }
     }
 }
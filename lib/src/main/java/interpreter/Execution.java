@@ -0,0 +1,264 @@
+package interpreter;
+
+import calculator.Calculator;
+import function.FunctionReader;
+import function.executor.ExecutionContext;
+import function.executor.ExecutionEngine;
+import function.executor.MapExecutor;
+import lexer.Lexer;
+import lexer.Token;
+import parser.Node;
+import parser.Parser;
+import provider.NumbersProvider;
+import provider.SequencesProvider;
+import sequence.Sequence;
+import sequence.SequenceAllocator;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// State of one run of program: variables, output, errors and state of the current line.
+// It's created by Interpreter for every `interpret` call and used by one thread, so it's not synchronized.
+//
+// Program is parsed once to the tree, statements are executed by StatementExecutor, which reports their errors.
+// Only lines, which don't match the grammar of parser (see Parser), are interpreted by states token by token,
+// so errors of invalid syntax are reported by states.
+//
+// If program has independent lines with functions (see DependencyAnalysis), lines of the same level run
+// in parallel with engine, every line in its own execution, and levels run one by one. Executions of lines read
+// variables of the parent without copying and keep their own writes, the parent isn't changed during the level.
+// Variables written by lines are copied back after their level, output and errors are merged in order of lines.
+final class Execution {
+
+    final SymbolTable numbers;
+    final SequenceTable sequences;
+
+    final List<String> output = new ArrayList<>();
+    final List<String> errors = new ArrayList<>();
+
+    final StringBuilder currentExpression = new StringBuilder();
+    final StringBuilder currentSequence = new StringBuilder();
+    final StringBuilder currentStringConstant = new StringBuilder();
+    final StringBuilder currentOut = new StringBuilder();
+
+    final NumbersProvider numbersProvider;
+    // Sequences are immutable, so they are shared with executors without copying.
+    final SequencesProvider sequencesProvider;
+
+    // Shared by all runs of interpreter.
+    final Calculator calculator;
+    final ExecutionEngine engine;
+
+    final ExecutionContext context;
+
+    // Results of `map()` are allocated by it, off-heap memory of them is freed, when run is finished.
+    final SequenceAllocator allocator;
+
+    final Reducer reducer;
+    final FunctionReader<Sequence> mapReader;
+    final StatementExecutor statementExecutor;
+
+    String currentVariableName = null;
+    State currentState;
+
+    Execution(Calculator calculator, ExecutionEngine engine, ExecutionContext context) {
+        this(calculator, engine, context, new SymbolTable(), new SequenceTable(), new SequenceAllocator());
+    }
+
+    // Execution of one line of parent, it reads variables of parent, but writes them to its own tables,
+    // so lines, which run in parallel, don't share written variables.
+    private Execution(Execution parent) {
+        this(parent.calculator, parent.engine, parent.context,
+                new SymbolTable(parent.numbers), new SequenceTable(parent.sequences), parent.allocator);
+    }
+
+    private Execution(Calculator calculator,
+                      ExecutionEngine engine,
+                      ExecutionContext context,
+                      SymbolTable numbers,
+                      SequenceTable sequences,
+                      SequenceAllocator allocator) {
+        this.calculator = calculator;
+        this.engine = engine;
+        this.context = context;
+        this.numbers = numbers;
+        this.sequences = sequences;
+        this.numbersProvider = numbers;
+        this.sequencesProvider = sequences;
+        this.allocator = allocator;
+        this.reducer = new Reducer(this);
+        this.mapReader = new FunctionReader<>(new MapExecutor(calculator, sequencesProvider, numbersProvider));
+        mapReader.executor.setAllocator(allocator);
+        mapReader.executor.setEngine(engine);
+        mapReader.executor.setContext(context);
+        this.statementExecutor = new StatementExecutor(this);
+    }
+
+    Interpreter.Output run(String code) {
+        Node.Program program = Parser.parse(code);
+        List<Node.Statement> statements = program.statements;
+        numbers.declare(program.variables);
+
+        List<String> lines = new ArrayList<>();
+        for (Node.Statement statement : statements) {
+            lines.add(statement.line);
+        }
+
+        try {
+            DependencyAnalysis analysis = DependencyAnalysis.analyze(lines);
+            if (analysis.isParallel) {
+                runParallel(statements, analysis);
+            } else {
+                runSequential(statements);
+            }
+        } finally {
+            allocator.release();
+        }
+
+        ExecutionContext.Status status = context.getStatus();
+        if (status != ExecutionContext.Status.COMPLETED) {
+            errors.add("Program is stopped: " + status);
+        }
+        return new Interpreter.Output(output, errors, status);
+    }
+
+    private void runSequential(List<Node.Statement> statements) {
+        for (int i = 0; i < statements.size() && !context.isStopped(); i++) {
+            if (!processStatement(statements.get(i))) {
+                break;
+            }
+        }
+    }
+
+    // Lines after the first failed one are not run. Lines of the same level are not started after it has failed,
+    // but results of lines, which were started before, are dropped.
+    // Exception of line is thrown only if the line would be run sequentially.
+    private void runParallel(List<Node.Statement> statements, DependencyAnalysis analysis) {
+        Execution[] executions = new Execution[statements.size()];
+        boolean[] completed = new boolean[statements.size()];
+        RuntimeException[] exceptions = new RuntimeException[statements.size()];
+        int failedLine = statements.size();
+
+        // The first failed line of the current level, it's updated by lines, which run in parallel.
+        AtomicInteger levelFailedLine = new AtomicInteger(failedLine);
+
+        for (int level = 0; level <= analysis.maxLevel && !context.isStopped(); level++) {
+            List<Integer> indexes = new ArrayList<>();
+            for (int i = 0; i < failedLine; i++) {
+                if (analysis.levels[i] == level) {
+                    indexes.add(i);
+                }
+            }
+
+            engine.forEachBatch(indexes.size(), k -> {
+                int index = indexes.get(k);
+                if (index > levelFailedLine.get()) {
+                    return;
+                }
+
+                Execution execution = new Execution(this);
+                try {
+                    completed[index] = execution.processStatement(statements.get(index));
+                } catch (RuntimeException e) {
+                    exceptions[index] = e;
+                }
+                executions[index] = execution;
+
+                if (!completed[index]) {
+                    levelFailedLine.accumulateAndGet(index, Math::min);
+                }
+            });
+
+            for (int index : indexes) {
+                if (completed[index]) {
+                    copyVariable(executions[index], analysis.writes[index]);
+                } else {
+                    failedLine = Math.min(failedLine, index);
+                }
+            }
+        }
+
+        for (int i = 0; i < statements.size() && executions[i] != null; i++) {
+            if (exceptions[i] != null) {
+                throw exceptions[i];
+            }
+            output.addAll(executions[i].output);
+            errors.addAll(executions[i].errors);
+            if (!completed[i]) {
+                break;
+            }
+        }
+    }
+
+    private void copyVariable(Execution execution, String name) {
+        if (name == null) {
+            return;
+        }
+
+        int slot = execution.numbers.getSlot(name);
+        if (slot >= 0) {
+            numbers.put(name, execution.numbers.getNumber(slot));
+        }
+
+        Sequence sequence = execution.sequences.get(name);
+        if (sequence != null) {
+            sequences.put(name, sequence);
+        }
+    }
+
+    private boolean processStatement(Node.Statement statement) {
+        if (statement instanceof Node.Unparsed) {
+            return processLine(statement.line);
+        }
+
+        int outputSize = output.size();
+        boolean isCompleted = statementExecutor.execute(statement);
+
+        // Results of the line, which was stopped in the middle, are incomplete.
+        if (context.isStopped()) {
+            output.subList(outputSize, output.size()).clear();
+            return false;
+        }
+        return isCompleted;
+    }
+
+    private boolean processLine(String line) {
+        currentState = new UndefinedState(this, null);
+        int outputSize = output.size();
+
+        // first step is calc all valid `reduce()` functions in line and replace them with results
+        line = reducer.reduceSequences(line);
+
+        // second step is split line by tokens.
+        List<Token> tokens = context.isStopped() ? Collections.emptyList() : Lexer.tokenize(line);
+
+        // third step is reading tokens array and keeping all variables.
+        // by order of tokens in array i could determine correctness of program and make some actions according known patterns.
+        for (Token token : tokens) {
+            if (context.isStopped() || !currentState.handleToken(token.text)) {
+                return false;
+            }
+        }
+
+        // fourth step is trying to compute expression, if the end of expression is the end of the line.
+        completeCurrentLine();
+
+        // Results of the line, which was stopped in the middle, are incomplete.
+        if (context.isStopped()) {
+            output.subList(outputSize, output.size()).clear();
+            return false;
+        }
+        return true;
+    }
+
+    // when line end achieved, try to complete some states
+    private void completeCurrentLine() {
+        currentState.completeLine();
+        mapReader.reset();
+        currentOut.setLength(0);
+        currentExpression.setLength(0);
+        currentSequence.setLength(0);
+        currentStringConstant.setLength(0);
+        currentVariableName = null;
+    }
+}
@@ -1,120 +1,91 @@
 package interpreter;
 
 import calculator.Calculator;
-import formatter.Formatter;
-import function.FunctionReader;
-import function.executor.MapExecutor;
-import provider.NumbersProvider;
-import provider.SequencesProvider;
+import function.executor.ExecutionContext;
+import function.executor.ExecutionEngine;
+import function.executor.ForkJoinEngine;
 
-import java.util.*;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+// Interpreter keeps only machinery, which doesn't depend on program: calculator and engine are thread-safe,
+// state of every run is kept by its own Execution. So one interpreter could run programs in many threads
+// at the same time without locks.
 public class Interpreter {
 
-    // Holder for output and errors.
+    // Holder for output, errors and status of run.
+    // If run was stopped, output contains results of lines, which were completed before it.
     public static class Output {
 
         public final String output;
 
         public final String errors;
 
+        public final ExecutionContext.Status status;
+
         public Output(String output, String errors) {
+            this(output, errors, ExecutionContext.Status.COMPLETED);
+        }
+
+        public Output(String output, String errors, ExecutionContext.Status status) {
             this.output = output;
             this.errors = errors;
+            this.status = status;
         }
 
-        Output(List<String> output, List<String> errors) {
-            this.output = String.join("\n", output);
-            this.errors = String.join("\n", errors);
+        Output(List<String> output, List<String> errors, ExecutionContext.Status status) {
+            this(String.join("\n", output), String.join("\n", errors), status);
         }
     }
 
-    final HashMap<String, String> numbers = new HashMap<>();
-    final HashMap<String, double[]> sequences = new HashMap<>();
-
-    final List<String> output = new ArrayList<>();
-    final List<String> errors = new ArrayList<>();
-
-    final StringBuilder currentExpression = new StringBuilder();
-    final StringBuilder currentSequence = new StringBuilder();
-    final StringBuilder currentStringConstant = new StringBuilder();
-    final StringBuilder currentOut = new StringBuilder();
+    final Calculator calculator = new Calculator();
 
-    final NumbersProvider numbersProvider = numbers::get;
-    final SequencesProvider sequencesProvider = sequenceName -> {
-        double[] sequence = sequences.get(sequenceName);
-        return sequence != null ? Arrays.copyOf(sequence, sequence.length) : null;
-    };
+    // Engine, which computes functions of long sequences in parallel.
+    final ExecutionEngine engine;
 
-    final Calculator calculator = new Calculator();
-    final Reducer reducer = new Reducer(this);
+    // Contexts of runs, which are not finished yet, they are cancelled by `stop()`.
+    private final Set<ExecutionContext> activeContexts = ConcurrentHashMap.newKeySet();
+    private volatile boolean stopped = false;
 
-    final FunctionReader<double[]> mapReader = new FunctionReader<>(
-            new MapExecutor(calculator, sequencesProvider, numbersProvider));
+    public Interpreter() {
+        this(ForkJoinEngine.getDefault());
+    }
 
-    String currentVariableName = null;
-    State currentState;
+    // Interpreter, which runs functions with given engine, engine is not shut down by `stop()`.
+    public Interpreter(ExecutionEngine engine) {
+        this.engine = engine;
+    }
 
     // Method took program and returns result of program interpretation.
+    // Run is limited by default limits of ExecutionContext.
     public Interpreter.Output interpret(String code) {
-        Scanner scanner = new Scanner(code);
-
-        while (scanner.hasNextLine()) {
-            String line = scanner.nextLine();
-            if (!processLine(line)) {
-                scanner.close();
-                return new Interpreter.Output(output, errors);
-            }
-        }
-
-        scanner.close();
-        return new Interpreter.Output(output, errors);
+        return interpret(code, new ExecutionContext());
     }
 
-    private boolean processLine(String line) {
-        currentState = new UndefinedState(this, null);
-
-        // first step is calc all valid `reduce()` functions in line and replace them with results
-        line = reducer.reduceSequences(line);
-
-        // second step is split line by spaces, for getting tokens array.
-        String formattedLine = Formatter.getStringWithSpaces(line);
-        String[] tokens = formattedLine.trim().split(" +");
-
-        // third step is reading tokens array and keeping all variables.
-        // by order of tokens in array i could determine correctness of program and make some actions according known patterns.
-        for (String token : tokens) {
-
-            if (token.isEmpty()) {
-                continue;
-            }
+    // Run could be cancelled from another thread with `context.cancel()` or `stop()`.
+    // Off-heap memory of sequences of run is freed, when it's finished.
+    public Interpreter.Output interpret(String code, ExecutionContext context) {
+        activeContexts.add(context);
 
-            if (!currentState.handleToken(token)) {
-                return false;
-            }
+        // `stop()` could be called before context was added, so it's cancelled here.
+        if (stopped) {
+            context.cancel();
         }
 
-        // fourth step is trying to compute expression, if the end of expression is the end of the line.
-        completeCurrentLine();
-        return true;
-    }
-
-
-    // when line end achieved, try to complete some states
-    private void completeCurrentLine() {
-        currentState.completeLine();
-        mapReader.reset();
-        currentOut.setLength(0);
-        currentExpression.setLength(0);
-        currentSequence.setLength(0);
-        currentStringConstant.setLength(0);
-        currentVariableName = null;
+        try {
+            return new Execution(calculator, engine, context).run(code);
+        } finally {
+            activeContexts.remove(context);
+        }
     }
 
+    // Stop all runs, runs, which are started after it, are cancelled immediately.
     public void stop() {
-        reducer.stop();
+        stopped = true;
 
-        mapReader.executor.stop();
-        mapReader.reset();
+        for (ExecutionContext context : activeContexts) {
+            context.cancel();
+        }
     }
-}
\ No newline at end of file
+}
@@ -4,21 +4,21 @@ import tools.Constants;
 
 public class PrintStringConstantState extends State {
 
-    PrintStringConstantState(Interpreter interpreter, State state) {
-        super(interpreter, state);
+    PrintStringConstantState(Execution execution, State state) {
+        super(execution, state);
     }
 
     @Override
     public boolean handleToken(String token) {
-        interpreter.currentStringConstant.append(token).append(Constants.SPACE);
+        execution.currentStringConstant.append(token).append(Constants.SPACE);
         return true;
     }
 
     @Override
     public void completeLine() {
         if (previousState instanceof UndefinedState) {
-            interpreter.output.add(interpreter.currentStringConstant.toString().trim());
-            interpreter.currentStringConstant.setLength(0);
+            execution.output.add(execution.currentStringConstant.toString().trim());
+            execution.currentStringConstant.setLength(0);
         }
     }
 }
@@ -4,17 +4,17 @@ import tools.Constants;
 
 public class ReadAssignSymbolState extends State {
 
-    ReadAssignSymbolState(Interpreter interpreter, State state) {
-        super(interpreter, state);
+    ReadAssignSymbolState(Execution execution, State state) {
+        super(execution, state);
     }
 
     @Override
     public boolean handleToken(String token) {
         if (token.equals(Constants.ASSIGN)) {
-            interpreter.currentState = new DetermineVariableTypeState(interpreter, this);
+            execution.currentState = new DetermineVariableTypeState(execution, this);
             return true;
         } else {
-            interpreter.errors.add("Sequence or number should be assigned to variable");
+            execution.errors.add("Sequence or number should be assigned to variable");
             return false;
         }
     }
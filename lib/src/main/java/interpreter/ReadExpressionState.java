@@ -1,26 +1,26 @@
 package interpreter;
 
+import tools.Constants;
 import tools.Validator;
 
 public class ReadExpressionState extends State {
 
-    ReadExpressionState(Interpreter interpreter, State state) {
-        super(interpreter, state);
+    ReadExpressionState(Execution execution, State state) {
+        super(execution, state);
     }
 
     @Override
     public boolean handleToken(String token) {
-        String str = token;
-
-        if (interpreter.numbers.containsKey(str)) {
-            str = interpreter.numbers.get(token);
-        }
-
-        if (Validator.isSign(str) || Validator.isNumber(str)) {
-            interpreter.currentExpression.append(str);
+        if (execution.numbers.contains(token)) {
+            // variable is kept in expression by name and bound to its value by calculator,
+            // spaces keep it apart from the neighbour tokens.
+            execution.currentExpression.append(Constants.SPACE).append(token).append(Constants.SPACE);
+            return true;
+        } else if (Validator.isSign(token) || Validator.isNumber(token)) {
+            execution.currentExpression.append(token);
             return true;
         } else {
-            interpreter.errors.add("Invalid symbol in expression");
+            execution.errors.add("Invalid symbol in expression");
             return false;
         }
     }
@@ -34,20 +34,20 @@ public class ReadExpressionState extends State {
 
     // calculate expression kept in `currentExpression` field.
     private void calcCurrentExpression() {
-        if (interpreter.currentExpression.length() == 0) {
-            interpreter.currentVariableName = null;
+        if (execution.currentExpression.length() == 0) {
+            execution.currentVariableName = null;
             return;
         }
 
-        String expr = interpreter.currentExpression.toString();
-        interpreter.currentExpression.setLength(0);
+        String expr = execution.currentExpression.toString();
+        execution.currentExpression.setLength(0);
 
-        Double result = interpreter.calculator.calc(expr, interpreter.numbersProvider);
+        Double result = execution.calculator.calc(expr, execution.numbersProvider);
 
         if (result != null) {
-            interpreter.numbers.put(interpreter.currentVariableName, String.valueOf(result));
+            execution.numbers.put(execution.currentVariableName, result);
         }
 
-        interpreter.currentVariableName = null;
+        execution.currentVariableName = null;
     }
 }
@@ -3,14 +3,14 @@ package interpreter;
 public class ReadMapState extends State {
 
 
-    ReadMapState(Interpreter interpreter, State state) {
-        super(interpreter, state);
+    ReadMapState(Execution execution, State state) {
+        super(execution, state);
     }
 
     @Override
     public boolean handleToken(String token) {
-        interpreter.mapReader.readNextToken(token);
-        if (interpreter.mapReader.isCompleted()) {
+        execution.mapReader.readNextToken(token);
+        if (execution.mapReader.isCompleted()) {
             return applyMap();
         } else {
             return true;
@@ -19,15 +19,15 @@ public class ReadMapState extends State {
 
     // validate map, apply expression to all elements and keep result in `sequences`.
     private boolean applyMap() {
-        if (interpreter.mapReader.validate()) {
+        if (execution.mapReader.validate()) {
             if (previousState instanceof DetermineVariableTypeState) {
-                interpreter.sequences.put(interpreter.currentVariableName, interpreter.mapReader.executor.compute());
+                execution.sequences.put(execution.currentVariableName, execution.mapReader.executor.compute());
             }
-            interpreter.mapReader.reset();
+            execution.mapReader.reset();
             return true;
         } else {
-            interpreter.errors.addAll(interpreter.mapReader.executor.errors);
-            interpreter.mapReader.reset();
+            execution.errors.addAll(execution.mapReader.executor.errors);
+            execution.mapReader.reset();
             return false;
         }
     }
@@ -6,8 +6,8 @@ import tools.Constants;
 
 public class ReadSequenceState extends State {
 
-    ReadSequenceState(Interpreter interpreter, State state) {
-        super(interpreter, state);
+    ReadSequenceState(Execution execution, State state) {
+        super(execution, state);
     }
 
     // read sequence {n, m} token by token, then try to make array from this sequence.
@@ -15,25 +15,25 @@ public class ReadSequenceState extends State {
     @Override
     public boolean handleToken(String token) {
 
-        interpreter.currentSequence.append(token);
+        execution.currentSequence.append(token);
         if (token.equals(Constants.END_SEQUENCE)) {
 
             SequenceParserResult sequenceParserResult = Formatter.formatSequence(
-                    interpreter.calculator,
-                    interpreter.currentSequence.toString().trim(),
-                    interpreter.numbersProvider
+                    execution.calculator,
+                    execution.currentSequence.toString().trim(),
+                    execution.numbersProvider
             );
 
             boolean isSequenceValid = sequenceParserResult.sequence != null
                     && sequenceParserResult.errors.isEmpty();
 
             if (isSequenceValid) {
-                interpreter.sequences.put(interpreter.currentVariableName, sequenceParserResult.sequence);
+                execution.sequences.put(execution.currentVariableName, sequenceParserResult.sequence);
             } else {
-                interpreter.errors.addAll(sequenceParserResult.errors);
+                execution.errors.addAll(sequenceParserResult.errors);
             }
 
-            interpreter.currentVariableName = null;
+            execution.currentVariableName = null;
             return isSequenceValid;
         }
         return true;
@@ -4,18 +4,18 @@ import tools.Validator;
 
 public class ReadVariableNameState extends State {
 
-    ReadVariableNameState(Interpreter interpreter, State state) {
-        super(interpreter, state);
+    ReadVariableNameState(Execution execution, State state) {
+        super(execution, state);
     }
 
     @Override
     public boolean handleToken(String token) {
         if (Validator.isNameAvailable(token)) {
-            interpreter.currentVariableName = token;
-            interpreter.currentState = new ReadAssignSymbolState(interpreter, this);
+            execution.currentVariableName = token;
+            execution.currentState = new ReadAssignSymbolState(execution, this);
             return true;
         } else {
-            interpreter.errors.add("Valid name for variable expected");
+            execution.errors.add("Valid name for variable expected");
             return false;
         }
     }
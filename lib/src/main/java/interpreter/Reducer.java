@@ -6,15 +6,18 @@ import tools.Constants;
 
 public class Reducer {
 
-    private final Interpreter interpreter;
+    private final Execution execution;
     private final FunctionReader<Double> reduceReader;
 
 
-    Reducer(Interpreter interpreter) {
-        this.interpreter = interpreter;
+    Reducer(Execution execution) {
+        this.execution = execution;
         this.reduceReader = new FunctionReader<>(
-                new ReduceExecutor(interpreter.calculator, interpreter.sequencesProvider, interpreter.numbersProvider)
+                new ReduceExecutor(execution.calculator, execution.sequencesProvider, execution.numbersProvider)
         );
+        this.reduceReader.executor.setAllocator(execution.allocator);
+        this.reduceReader.executor.setEngine(execution.engine);
+        this.reduceReader.executor.setContext(execution.context);
     }
 
     String reduceSequences(String line) {
@@ -33,28 +36,27 @@ public class Reducer {
             Double result;
             char[] chars = reducedString.toCharArray();
 
-            // read, validate, compute `reduce()` body.
-            // replace it with result of computation.
+            // read `reduce()` body until its brackets are closed.
             for (char c : chars) {
                 reduceReader.readNextChar(c);
-                if (reduceReader.isCompleted() && reduceReader.validate()) {
-                    result = reduceReader.executor.compute();
-                    if (result != null) {
-                        line = line.replace(Constants.REDUCE + reduceReader.getFunctionExpression(),
-                                result.toString());
-                    }
-                } else {
-                    interpreter.errors.addAll(reduceReader.executor.errors);
+                if (reduceReader.isCompleted()) {
+                    break;
                 }
             }
+
+            // validate, compute `reduce()` body and replace it with result of computation.
+            if (reduceReader.isCompleted() && reduceReader.validate()) {
+                result = reduceReader.executor.compute();
+                if (result != null) {
+                    line = line.replace(Constants.REDUCE + reduceReader.getFunctionExpression(),
+                            result.toString());
+                }
+            } else {
+                execution.errors.addAll(reduceReader.executor.errors);
+            }
         }
 
         reduceReader.reset();
         return line;
     }
-
-    void stop() {
-        reduceReader.executor.stop();
-        reduceReader.reset();
-    }
 }
@@ -0,0 +1,46 @@
+package interpreter;
+
+import provider.SequencesProvider;
+import sequence.Sequence;
+
+import java.util.HashMap;
+
+// Keeps sequence variables, sequences are immutable, so they are shared without copying.
+class SequenceTable implements SequencesProvider {
+
+    // Variables of parent are read through this table, new sequences are kept in it.
+    // Parent must not be changed, while this table is used.
+    private final SequenceTable parent;
+
+    private final HashMap<String, Sequence> sequences = new HashMap<>();
+
+    SequenceTable() {
+        this(null);
+    }
+
+    // Table, which reads variables of parent without copying them.
+    SequenceTable(SequenceTable parent) {
+        this.parent = parent;
+    }
+
+    @Override
+    public Sequence getSequenceByName(String sequenceName) {
+        return get(sequenceName);
+    }
+
+    Sequence get(String variableName) {
+        Sequence sequence = sequences.get(variableName);
+        if (sequence == null && parent != null) {
+            return parent.get(variableName);
+        }
+        return sequence;
+    }
+
+    boolean containsKey(String variableName) {
+        return get(variableName) != null;
+    }
+
+    void put(String variableName, Sequence sequence) {
+        sequences.put(variableName, sequence);
+    }
+}
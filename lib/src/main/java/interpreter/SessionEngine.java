@@ -0,0 +1,198 @@
+package interpreter;
+
+import function.executor.ExecutionContext;
+import function.executor.ExecutionEngine;
+import function.executor.ForkJoinEngine;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Runs many programs concurrently, every program is a session with its own thread, sessions share one interpreter.
+// Sessions run in virtual threads, if JVM supports them, so thousands of short programs don't need thousands
+// of platform threads. Otherwise they run in the bounded pool of platform threads and wait for free one.
+// Batches of long `map()` and `reduce()` of all sessions run in one CPU engine with bounded count of threads,
+// so heavy sessions don't starve light ones by creating threads.
+//
+// Count of platform threads, which run sessions without virtual threads, could be set with
+// `-Dinterpreter.session.threads=N`, by default it's 4 threads for every available processor.
+public final class SessionEngine {
+
+    static final int PLATFORM_THREADS = Integer.getInteger(
+            "interpreter.session.threads",
+            4 * Runtime.getRuntime().availableProcessors());
+
+    // Holder for result and metrics of one session, time is measured in nanoseconds.
+    public static final class Session {
+
+        public final long id;
+
+        private final ExecutionContext context;
+        private final CompletableFuture<Interpreter.Output> output = new CompletableFuture<>();
+
+        private final long submitNanos = System.nanoTime();
+        private volatile long startNanos;
+        private volatile long endNanos;
+        private volatile ExecutionContext.Status status = ExecutionContext.Status.RUNNING;
+
+        Session(long id, ExecutionContext context) {
+            this.id = id;
+            this.context = context;
+        }
+
+        // Wait for the end of session, exception or error of interpreter is rethrown as CompletionException.
+        public Interpreter.Output getOutput() {
+            return output.join();
+        }
+
+        public CompletableFuture<Interpreter.Output> getFuture() {
+            return output;
+        }
+
+        public boolean isDone() {
+            return output.isDone();
+        }
+
+        // Stop session, its output contains lines, which were completed before it.
+        public void cancel() {
+            context.cancel();
+        }
+
+        // Time, which session waited for thread.
+        public long getQueueNanos() {
+            return startNanos == 0 ? System.nanoTime() - submitNanos : startNanos - submitNanos;
+        }
+
+        // Time of running of program, 0 if it's not started.
+        public long getRunNanos() {
+            if (startNanos == 0) {
+                return 0;
+            }
+            return endNanos == 0 ? System.nanoTime() - startNanos : endNanos - startNanos;
+        }
+
+        public long getElementsCount() {
+            return context.getElementsCount();
+        }
+
+        // Status of session, `RUNNING` until it is finished, `FAILED` if program threw exception.
+        public ExecutionContext.Status getStatus() {
+            return status;
+        }
+
+        @Override
+        public String toString() {
+            return "Session " + id + ": " + status + ", queued " + getQueueNanos() / 1000 + " us, run "
+                    + getRunNanos() / 1000 + " us, " + getElementsCount() + " elements";
+        }
+    }
+
+    private final Interpreter interpreter;
+    private final ExecutorService sessions;
+    private final boolean virtual;
+
+    private final AtomicLong lastId = new AtomicLong();
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicLong completedCount = new AtomicLong();
+
+    public SessionEngine() {
+        this(ForkJoinEngine.getDefault());
+    }
+
+    // Sessions compute batches with given engine, it's not shut down by `shutdown()`.
+    public SessionEngine(ExecutionEngine engine) {
+        this.interpreter = new Interpreter(engine);
+
+        ExecutorService virtualThreads = newVirtualThreadExecutor();
+        this.virtual = virtualThreads != null;
+        this.sessions = virtual ? virtualThreads : Executors.newFixedThreadPool(PLATFORM_THREADS, new DaemonThreadFactory());
+    }
+
+    // Run program with default limits of ExecutionContext.
+    public Session submit(String code) {
+        return submit(code, new ExecutionContext());
+    }
+
+    public Session submit(String code, ExecutionContext context) {
+        Session session = new Session(lastId.incrementAndGet(), context);
+        activeCount.incrementAndGet();
+
+        try {
+            sessions.execute(() -> run(session, code));
+        } catch (RejectedExecutionException e) {
+            activeCount.decrementAndGet();
+            throw e;
+        }
+        return session;
+    }
+
+    // Sessions run in virtual threads.
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    // Count of sessions, which are submitted, but not finished.
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    // Running sessions are finished, new ones are rejected.
+    public void shutdown() {
+        sessions.shutdown();
+    }
+
+    // Session is completed even if program fails with Error, so `getOutput()` doesn't wait forever.
+    private void run(Session session, String code) {
+        session.startNanos = System.nanoTime();
+        Interpreter.Output output = null;
+        Throwable exception = null;
+
+        try {
+            output = interpreter.interpret(code, session.context);
+            session.status = output.status;
+        } catch (Throwable e) {
+            session.status = ExecutionContext.Status.FAILED;
+            exception = e;
+        } finally {
+            session.endNanos = System.nanoTime();
+            activeCount.decrementAndGet();
+            completedCount.incrementAndGet();
+
+            if (exception == null) {
+                session.output.complete(output);
+            } else {
+                session.output.completeExceptionally(exception);
+            }
+        }
+    }
+
+    // `Executors.newVirtualThreadPerTaskExecutor()` is called reflectively, so library runs on older JVMs.
+    // It's null, if virtual threads are not supported or not enabled.
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "interpreter-session-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
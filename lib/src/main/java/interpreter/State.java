@@ -2,11 +2,11 @@ package interpreter;
 
 public abstract class State {
 
-    final Interpreter interpreter;
+    final Execution execution;
     final State previousState;
 
-    State(Interpreter interpreter, State previousState) {
-        this.interpreter = interpreter;
+    State(Execution execution, State previousState) {
+        this.execution = execution;
         this.previousState = previousState;
     }
 
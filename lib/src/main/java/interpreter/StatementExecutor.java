@@ -0,0 +1,274 @@
+package interpreter;
+
+import calculator.Expression;
+import function.executor.Executor;
+import function.executor.MapExecutor;
+import function.executor.ReduceExecutor;
+import parser.Node;
+import sequence.RangeSequence;
+import sequence.Sequence;
+import tools.Constants;
+
+import java.util.List;
+
+// Executes statements of parsed program without reading their text again and reports their errors.
+// Arithmetic is evaluated from the tree with doubles, results of `reduce()` are used as they are.
+// Lambdas are built from the tree to expressions of calculator, so they are not parsed by executors.
+//
+// Errors are the same as errors of lines read by states, and error stops program in the same cases:
+// error of `var` stops it, error of `out` doesn't. Evaluation stops at the first error, so only errors
+// of the first function, which can't be computed, are reported. Errors of sequences, which are not defined,
+// and errors of input of nested `map()` are reported as they are, states throw or report another error for them.
+final class StatementExecutor {
+
+    private final Execution execution;
+
+    StatementExecutor(Execution execution) {
+        this.execution = execution;
+    }
+
+    // Returns false, if program should be stopped.
+    boolean execute(Node.Statement statement) {
+        if (statement instanceof Node.Print) {
+            execution.output.add(((Node.Print) statement).text);
+            return true;
+        } else if (statement instanceof Node.Assignment) {
+            return assign((Node.Assignment) statement);
+        } else {
+            out((Node.Out) statement);
+            return true;
+        }
+    }
+
+    private boolean assign(Node.Assignment assignment) {
+        if (assignment.value instanceof Node.Range) {
+            Sequence sequence = range((Node.Range) assignment.value, execution.errors);
+            if (sequence == null) {
+                return false;
+            }
+            execution.sequences.put(assignment.name, sequence);
+        } else if (assignment.value instanceof Node.MapCall) {
+            MapExecutor executor = newMapExecutor();
+            if (!prepareMap(executor, (Node.MapCall) assignment.value)) {
+                execution.errors.addAll(executor.errors);
+                return false;
+            }
+            execution.sequences.put(assignment.name, executor.compute());
+        } else {
+            Double result = calc(assignment.value);
+            if (result == null) {
+                execution.errors.add("Invalid symbol in expression");
+                return false;
+            }
+            execution.numbers.put(assignment.name, result);
+        }
+        return true;
+    }
+
+    private void out(Node.Out out) {
+        if (out.value instanceof Node.Range) {
+            Sequence sequence = range((Node.Range) out.value, null);
+            if (sequence != null) {
+                print(sequence);
+            } else {
+                execution.errors.add("Invalid expression in out");
+            }
+        } else if (out.value instanceof Node.MapCall) {
+            MapExecutor executor = newMapExecutor();
+            if (!prepareMap(executor, (Node.MapCall) out.value)) {
+                execution.errors.add("Cannot apply map");
+            } else if (executor.toSequence().length() > Sequence.MAX_PRINTABLE_LENGTH) {
+                // Length of result is the length of input, so too long sequence is not computed.
+                execution.errors.add("Sequence is too long to print");
+            } else {
+                Sequence sequence = executor.compute();
+                print(sequence);
+                execution.allocator.release(sequence);
+            }
+        } else {
+            Double result = calc(out.value);
+            if (result != null) {
+                execution.output.add(String.valueOf(result));
+            } else if (isSequenceName(out.value)) {
+                print(execution.sequences.get(((Node.Variable) out.value).name));
+            } else if (out.line.trim().substring(Constants.OUT.length()).trim().startsWith(Constants.MAP)) {
+                // States read everything, which starts with `map`, as function.
+                execution.errors.add("Cannot apply map");
+            } else {
+                execution.errors.add("Invalid expression in out");
+            }
+        }
+    }
+
+    // Name of sequence variable, names, which start with `map`, are read as function by states.
+    private boolean isSequenceName(Node value) {
+        if (!(value instanceof Node.Variable)) {
+            return false;
+        }
+        String name = ((Node.Variable) value).name;
+        return !name.startsWith(Constants.MAP) && execution.sequences.containsKey(name);
+    }
+
+    private void print(Sequence sequence) {
+        if (sequence.length() > Sequence.MAX_PRINTABLE_LENGTH) {
+            execution.errors.add("Sequence is too long to print");
+        } else {
+            execution.output.add(sequence.toString());
+        }
+    }
+
+    // Returns null, if arithmetic can't be computed. Errors of functions are reported by them,
+    // other errors are reported by the caller.
+    private Double calc(Node arithmetic) {
+        if (arithmetic instanceof Node.Number) {
+            return ((Node.Number) arithmetic).value;
+        } else if (arithmetic instanceof Node.Variable) {
+            int slot = ((Node.Variable) arithmetic).slot;
+            return execution.numbers.isDefined(slot) ? execution.numbers.getNumber(slot) : null;
+        } else if (arithmetic instanceof Node.Negation) {
+            Double operand = calc(((Node.Negation) arithmetic).operand);
+            return operand != null ? -operand : null;
+        } else if (arithmetic instanceof Node.ReduceCall) {
+            return reduce((Node.ReduceCall) arithmetic);
+        }
+
+        Node.Operation operation = (Node.Operation) arithmetic;
+        Double left = calc(operation.left);
+        Double right = left != null ? calc(operation.right) : null;
+        if (right == null) {
+            return null;
+        }
+
+        switch (operation.operator) {
+            case ADD:
+                return left + right;
+            case SUBTRACT:
+                return left - right;
+            case MULTIPLY:
+                return left * right;
+            case DIVIDE:
+                return left / right;
+            default:
+                return Math.pow(left, right);
+        }
+    }
+
+    // Errors of range are added to `errors`, they are dropped, if it's null.
+    private Sequence range(Node.Range range, List<String> errors) {
+        Double start = calc(range.start);
+        String error = checkBound(start);
+        Double end = null;
+
+        if (error == null) {
+            end = calc(range.end);
+            error = checkBound(end);
+        }
+        if (error == null && start > end) {
+            error = "Wrong sequence items order";
+        }
+
+        if (error != null) {
+            if (errors != null) {
+                errors.add(error);
+            }
+            return null;
+        }
+        return new RangeSequence(start.longValue(), end.longValue());
+    }
+
+    // Returns error of bound of range or null, if it's valid.
+    private static String checkBound(Double value) {
+        if (value == null || value % 1 != 0) {
+            return "Sequence must contains only integers";
+        } else if (Math.abs(value) > RangeSequence.MAX_BOUND) {
+            return "Sequence items must not exceed 2^53 by absolute value";
+        }
+        return null;
+    }
+
+    private MapExecutor newMapExecutor() {
+        MapExecutor executor = new MapExecutor(execution.calculator, execution.sequencesProvider, execution.numbersProvider);
+        executor.setAllocator(execution.allocator);
+        executor.setEngine(execution.engine);
+        executor.setContext(execution.context);
+        return executor;
+    }
+
+    private Double reduce(Node.ReduceCall call) {
+        ReduceExecutor executor = new ReduceExecutor(execution.calculator, execution.sequencesProvider, execution.numbersProvider);
+        executor.setAllocator(execution.allocator);
+        executor.setEngine(execution.engine);
+        executor.setContext(execution.context);
+
+        Sequence sequence = source(call.source, executor);
+        Double base = sequence != null ? calc(call.base) : null;
+        if (base == null) {
+            execution.errors.addAll(executor.errors);
+            return null;
+        }
+
+        executor.prepare(sequence, base, call.lambda.arguments.toArray(new String[0]), build(call.lambda.body));
+        return executor.compute();
+    }
+
+    // Errors are kept by executor.
+    private boolean prepareMap(MapExecutor executor, Node.MapCall call) {
+        Sequence sequence = source(call.source, executor);
+        if (sequence == null) {
+            return false;
+        }
+
+        executor.prepare(sequence, call.lambda.arguments.get(0), build(call.lambda.body));
+        return true;
+    }
+
+    // Input of function, errors of it are kept by executor of function.
+    // Nested `map()` is not computed, its lambda is applied, when elements are read by function.
+    private Sequence source(Node source, Executor<?> executor) {
+        if (source instanceof Node.Variable) {
+            String name = ((Node.Variable) source).name;
+            Sequence sequence = execution.sequences.get(name);
+            if (sequence == null) {
+                executor.errors.add("Undefined sequence: " + name);
+            }
+            return sequence;
+        } else if (source instanceof Node.Range) {
+            return range((Node.Range) source, executor.errors);
+        }
+
+        MapExecutor nestedExecutor = executor.newMapExecutor();
+        if (!prepareMap(nestedExecutor, (Node.MapCall) source)) {
+            executor.errors.addAll(nestedExecutor.errors);
+            return null;
+        }
+        return nestedExecutor.toSequence();
+    }
+
+    // Expression of calculator, variables of lambda are already bound to slots of its arguments.
+    private static Expression build(Node node) {
+        if (node instanceof Node.Number) {
+            return new Expression.Constant(((Node.Number) node).value);
+        } else if (node instanceof Node.Variable) {
+            return new Expression.Argument(((Node.Variable) node).slot);
+        } else if (node instanceof Node.Negation) {
+            return new Expression.Negation(build(((Node.Negation) node).operand));
+        }
+
+        Node.Operation operation = (Node.Operation) node;
+        Expression left = build(operation.left);
+        Expression right = build(operation.right);
+
+        switch (operation.operator) {
+            case ADD:
+                return new Expression.Addition(left, right);
+            case SUBTRACT:
+                return new Expression.Subtraction(left, right);
+            case MULTIPLY:
+                return new Expression.Multiplication(left, right);
+            case DIVIDE:
+                return new Expression.Division(left, right);
+            default:
+                return new Expression.Power(left, right);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package interpreter;
+
+import provider.NumbersProvider;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+// Keeps values of number variables.
+// Name is resolved to slot once, when variable is declared or defined, values are kept as primitive doubles in slots.
+// Variables of parsed program are declared before it's run, so slots of them are the slots resolved by parser.
+class SymbolTable implements NumbersProvider {
+
+    // Variables of parent are read through this table, new values are kept in it.
+    // Parent must not be changed, while this table is used.
+    private final SymbolTable parent;
+
+    // Slots of parent are [0, base), slots of this table are [base, base + slots.size()).
+    private final int base;
+
+    private final HashMap<String, Integer> slots;
+    private double[] values;
+    private boolean[] isDefined;
+
+    SymbolTable() {
+        this(null, 0);
+    }
+
+    // Table, which reads variables of parent without copying them.
+    SymbolTable(SymbolTable parent) {
+        this(parent, parent.base + parent.slots.size());
+    }
+
+    private SymbolTable(SymbolTable parent, int base) {
+        this.parent = parent;
+        this.base = base;
+        this.slots = new HashMap<>();
+        this.values = new double[parent != null ? 4 : 16];
+        this.isDefined = new boolean[values.length];
+    }
+
+    @Override
+    public int getSlot(String variableName) {
+        Integer slot = slots.get(variableName);
+        if (slot != null && isDefined[slot]) {
+            return base + slot;
+        }
+        return parent != null ? parent.getSlot(variableName) : -1;
+    }
+
+    @Override
+    public double getNumber(int slot) {
+        return slot >= base ? values[slot - base] : parent.getNumber(slot);
+    }
+
+    // Slot could be declared, but variable is not defined yet.
+    boolean isDefined(int slot) {
+        return slot >= base ? slot - base < slots.size() && isDefined[slot - base] : parent.isDefined(slot);
+    }
+
+    boolean contains(String variableName) {
+        return getSlot(variableName) >= 0;
+    }
+
+    // The i-th name gets the i-th slot, so it must be called for the empty table without parent.
+    // Table of line, which runs in parallel, defines variable in its own slot, it's not read by slot of program,
+    // because line reads variables before it writes its variable.
+    void declare(List<String> variableNames) {
+        for (String name : variableNames) {
+            slot(name);
+        }
+    }
+
+    void put(String variableName, double value) {
+        int slot = slot(variableName);
+        values[slot] = value;
+        isDefined[slot] = true;
+    }
+
+    private int slot(String variableName) {
+        int slot = slots.computeIfAbsent(variableName, name -> slots.size());
+        if (slot == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+            isDefined = Arrays.copyOf(isDefined, values.length);
+        }
+        return slot;
+    }
+}
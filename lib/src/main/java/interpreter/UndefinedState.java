@@ -4,25 +4,25 @@ import tools.Constants;
 
 public class UndefinedState extends State {
 
-    public UndefinedState(Interpreter interpreter, State state) {
-        super(interpreter, state);
+    public UndefinedState(Execution execution, State state) {
+        super(execution, state);
     }
 
     @Override
     public boolean handleToken(String token) {
         if (token.equals(Constants.VARIABLE)) {
-            interpreter.currentState = new ReadVariableNameState(interpreter, this);
+            execution.currentState = new ReadVariableNameState(execution, this);
         } else if (token.equals(Constants.PRINT)) {
-            interpreter.currentState = new PrintStringConstantState(interpreter, this);
+            execution.currentState = new PrintStringConstantState(execution, this);
         } else if (token.equals(Constants.OUT)) {
-            interpreter.currentState = new ReadOutState(interpreter, this);
+            execution.currentState = new ReadOutState(execution, this);
         } /*else if (token.equals(Constants.SPACE)) {
             previousState = Interpreter.State.UNDEFINED;
             currentState = Interpreter.State.UNDEFINED;
         } */else if (token.startsWith(Constants.START_SEQUENCE)) {
-            interpreter.currentState = new ReadSequenceState(interpreter, this);
+            execution.currentState = new ReadSequenceState(execution, this);
         } else {
-            interpreter.errors.add("Unexpected token: " + token);
+            execution.errors.add("Unexpected token: " + token);
             return false;
         }
 
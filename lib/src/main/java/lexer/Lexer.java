@@ -0,0 +1,105 @@
+package lexer;
+
+import tools.Constants;
+import tools.NumberScanner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Splits line by tokens in one pass.
+// Every symbol from `Constants.SYMBOLS` is a token by itself, other tokens are separated by symbols or whitespaces.
+// Words are read as numbers, if NumberScanner accepts them, otherwise as keywords or identifiers.
+// Identifier is any other word, it is not checked to be a valid name.
+public final class Lexer {
+
+    // Index of symbol in `Constants.SYMBOLS` by its character, -1 for other characters.
+    private static final byte[] SYMBOLS = new byte[128];
+
+    static {
+        Arrays.fill(SYMBOLS, (byte) -1);
+        for (int i = 0; i < Constants.SYMBOLS.length; i++) {
+            SYMBOLS[Constants.SYMBOLS[i].charAt(0)] = (byte) i;
+        }
+    }
+
+    private static final String[] KEYWORDS = {
+            Constants.VARIABLE,
+            Constants.PRINT,
+            Constants.OUT,
+            Constants.MAP,
+            Constants.REDUCE
+    };
+
+    private Lexer() {
+    }
+
+    public static List<Token> tokenize(CharSequence source) {
+        List<Token> tokens = new ArrayList<>();
+        int length = source.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = source.charAt(i);
+
+            if (isWhitespace(c)) {
+                i++;
+            } else if (isSymbol(c)) {
+                // symbols are kept as constants, so they are not allocated again for every line.
+                String symbol = Constants.SYMBOLS[SYMBOLS[c]];
+                tokens.add(new Token(Token.Type.SYMBOL, symbol, Double.NaN, i, i + 1));
+                i++;
+            } else {
+                int start = i;
+                while (i < length && isWordPart(source.charAt(i))) {
+                    i++;
+                }
+                tokens.add(readWord(source, start, i));
+            }
+        }
+
+        return tokens;
+    }
+
+    public static boolean isSymbol(char c) {
+        return c < SYMBOLS.length && SYMBOLS[c] >= 0;
+    }
+
+    private static boolean isWordPart(char c) {
+        return !isWhitespace(c) && !isSymbol(c);
+    }
+
+    // Same characters as removed by String.trim(), they were ignored around tokens before.
+    private static boolean isWhitespace(char c) {
+        return c <= ' ';
+    }
+
+    private static Token readWord(CharSequence source, int start, int end) {
+        for (String keyword : KEYWORDS) {
+            if (regionMatches(source, start, end, keyword)) {
+                return new Token(Token.Type.KEYWORD, keyword, Double.NaN, start, end);
+            }
+        }
+
+        String text = source.subSequence(start, end).toString();
+        Double value = NumberScanner.parse(source, start, end);
+
+        if (value != null) {
+            return new Token(Token.Type.NUMBER, text, value, start, end);
+        }
+
+        return new Token(Token.Type.IDENTIFIER, text, Double.NaN, start, end);
+    }
+
+    private static boolean regionMatches(CharSequence source, int start, int end, String word) {
+        if (end - start != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (source.charAt(start + i) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
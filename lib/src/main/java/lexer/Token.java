@@ -0,0 +1,43 @@
+package lexer;
+
+// Token of the line, read by Lexer.
+// `start` and `end` are offsets of the token in the source, `end` is exclusive.
+public final class Token {
+
+    public enum Type {
+        NUMBER,
+        IDENTIFIER,
+        KEYWORD,
+        SYMBOL
+    }
+
+    public final Type type;
+    public final String text;
+
+    // Parsed value of number, for other tokens it is NaN.
+    public final double value;
+
+    public final int start;
+    public final int end;
+
+    Token(Type type, String text, double value, int start, int end) {
+        this.type = type;
+        this.text = text;
+        this.value = value;
+        this.start = start;
+        this.end = end;
+    }
+
+    public boolean isNumber() {
+        return type == Type.NUMBER;
+    }
+
+    public boolean isSymbol() {
+        return type == Type.SYMBOL;
+    }
+
+    @Override
+    public String toString() {
+        return type + "(" + text + ")@" + start;
+    }
+}
@@ -0,0 +1,181 @@
+package parser;
+
+import java.util.List;
+
+// Typed tree of program, which is built by Parser.
+// Arithmetic is kept as tree of operations, numbers, variables and calls of `reduce()`, so it's evaluated
+// without reading text again. Lambdas are kept as names of arguments and arithmetic over them.
+public abstract class Node {
+
+    // Whole program, statements are in order of lines.
+    // Names of variables of statements (not of lambdas) are in order of their slots.
+    public static final class Program extends Node {
+
+        public final List<Statement> statements;
+        public final List<String> variables;
+
+        Program(List<Statement> statements, List<String> variables) {
+            this.statements = statements;
+            this.variables = variables;
+        }
+    }
+
+    // Statement of one line, `line` is its source.
+    public abstract static class Statement extends Node {
+
+        public final String line;
+
+        Statement(String line) {
+            this.line = line;
+        }
+    }
+
+    // `var name = value`
+    public static final class Assignment extends Statement {
+
+        public final String name;
+        public final Node value;
+
+        Assignment(String line, String name, Node value) {
+            super(line);
+            this.name = name;
+            this.value = value;
+        }
+    }
+
+    // `out value`
+    public static final class Out extends Statement {
+
+        public final Node value;
+
+        Out(String line, Node value) {
+            super(line);
+            this.value = value;
+        }
+    }
+
+    // `print text`
+    public static final class Print extends Statement {
+
+        public final String text;
+
+        Print(String line, String text) {
+            super(line);
+            this.text = text;
+        }
+    }
+
+    // Line, which parser doesn't recognize, it's interpreted as is.
+    public static final class Unparsed extends Statement {
+
+        Unparsed(String line) {
+            super(line);
+        }
+    }
+
+    // Number literal, unary minus before literal is the part of it.
+    public static final class Number extends Node {
+
+        public final double value;
+
+        Number(double value) {
+            this.value = value;
+        }
+    }
+
+    // Unary minus before variable or call of `reduce()`.
+    public static final class Negation extends Node {
+
+        public final Node operand;
+
+        Negation(Node operand) {
+            this.operand = operand;
+        }
+    }
+
+    // Binary operation of arithmetic.
+    public static final class Operation extends Node {
+
+        public enum Operator {
+            ADD,
+            SUBTRACT,
+            MULTIPLY,
+            DIVIDE,
+            POW
+        }
+
+        public final Operator operator;
+        public final Node left;
+        public final Node right;
+
+        Operation(Operator operator, Node left, Node right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    // Variable, it's read as number in arithmetic and as sequence by functions.
+    // Slot is resolved by parser: it's the index in Program.variables or the index of argument in lambda,
+    // so value of variable is read without lookup by name.
+    public static final class Variable extends Node {
+
+        public final String name;
+        public final int slot;
+
+        Variable(String name, int slot) {
+            this.name = name;
+            this.slot = slot;
+        }
+    }
+
+    // `{start, end}`
+    public static final class Range extends Node {
+
+        public final Node start;
+        public final Node end;
+
+        Range(Node start, Node end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    // `map(source, lambda)`, source is Variable, Range or MapCall.
+    public static final class MapCall extends Node {
+
+        public final Node source;
+        public final Lambda lambda;
+
+        MapCall(Node source, Lambda lambda) {
+            this.source = source;
+            this.lambda = lambda;
+        }
+    }
+
+    // `reduce(source, base, lambda)`, source is Variable, Range or MapCall.
+    public static final class ReduceCall extends Node {
+
+        public final Node source;
+        public final Node base;
+        public final Lambda lambda;
+
+        ReduceCall(Node source, Node base, Lambda lambda) {
+            this.source = source;
+            this.base = base;
+            this.lambda = lambda;
+        }
+    }
+
+    // `names -> body`, body is arithmetic, which reads only arguments of lambda.
+    public static final class Lambda extends Node {
+
+        public final List<String> arguments;
+        public final Node body;
+
+        Lambda(List<String> arguments, Node body) {
+            this.arguments = arguments;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package parser;
+
+import lexer.Lexer;
+import lexer.Token;
+import tools.Constants;
+import tools.Validator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+
+// Parses program to the tree in one pass over tokens of its lines.
+// Line, which doesn't match the grammar, is kept as Unparsed, so it's interpreted by states with the same errors.
+//
+// statement  := 'var' name '=' value | 'out' value | 'print' words
+// value      := range | map | arithmetic
+// range      := '{' arithmetic ',' arithmetic '}'
+// map        := 'map' '(' source ',' lambda ')'
+// reduce     := 'reduce' '(' source ',' arithmetic ',' lambda ')'
+// source     := name | range | map
+// lambda     := names '->' arithmetic, names are one name for map and two names separated by spaces for reduce,
+//               arithmetic reads only these names and doesn't call functions
+// arithmetic := term (('+' | '-') term)*
+// term       := factor (('*' | '/') factor)*
+// factor     := operand ('^' factor)?
+// operand    := ('+' | '-')? (number | name | reduce) | '(' arithmetic ')'
+//
+// Precedence, associativity and unary signs are the same as in Calculator, so arithmetic, which calculator
+// doesn't accept (e.g. unary sign before bracket), doesn't match the grammar too.
+public final class Parser {
+
+    private final String line;
+    private final List<Token> tokens;
+    private int position = 0;
+
+    // Slots of variables of the whole program, they are shared by parsers of its lines.
+    private final Map<String, Integer> slots;
+
+    // Names, which could be read by arithmetic, null if any name could be read.
+    private List<String> arguments = null;
+
+    private Parser(String line, Map<String, Integer> slots) {
+        this.line = line;
+        this.tokens = Lexer.tokenize(line);
+        this.slots = slots;
+    }
+
+    public static Node.Program parse(String code) {
+        List<Node.Statement> statements = new ArrayList<>();
+        Map<String, Integer> slots = new LinkedHashMap<>();
+        Scanner scanner = new Scanner(code);
+
+        while (scanner.hasNextLine()) {
+            statements.add(parseLine(scanner.nextLine(), slots));
+        }
+
+        scanner.close();
+        return new Node.Program(statements, new ArrayList<>(slots.keySet()));
+    }
+
+    public static Node.Statement parseLine(String line) {
+        return parseLine(line, new LinkedHashMap<>());
+    }
+
+    private static Node.Statement parseLine(String line, Map<String, Integer> slots) {
+        Node.Statement statement = new Parser(line, slots).parseStatement();
+        return statement != null ? statement : new Node.Unparsed(line);
+    }
+
+    // Methods of parser return null, if tokens don't match the grammar.
+    private Node.Statement parseStatement() {
+        // Interpreter replaces `reduce` anywhere in line with result, even inside of words, so such lines are not parsed.
+        for (Token token : tokens) {
+            if (token.text.contains(Constants.REDUCE) && token.type != Token.Type.KEYWORD) {
+                return null;
+            }
+        }
+
+        if (accept(Constants.VARIABLE)) {
+            Token name = next();
+            if (name == null || name.type != Token.Type.IDENTIFIER || !Validator.isNameAvailable(name.text)
+                    || !accept(Constants.ASSIGN)) {
+                return null;
+            }
+
+            Node value = parseValue();
+            return value != null && isEnd() ? new Node.Assignment(line, name.text, value) : null;
+        } else if (accept(Constants.OUT)) {
+            Node value = parseValue();
+            return value != null && isEnd() ? new Node.Out(line, value) : null;
+        } else if (accept(Constants.PRINT)) {
+            if (line.contains(Constants.REDUCE)) {
+                return null;
+            }
+
+            StringBuilder text = new StringBuilder();
+            while (!isEnd()) {
+                text.append(next().text).append(Constants.SPACE);
+            }
+            return new Node.Print(line, text.toString().trim());
+        } else {
+            return null;
+        }
+    }
+
+    private Node parseValue() {
+        if (is(Constants.START_SEQUENCE)) {
+            return parseRange();
+        } else if (is(Constants.MAP)) {
+            return parseMap();
+        } else {
+            return parseArithmetic();
+        }
+    }
+
+    private Node.Range parseRange() {
+        if (!accept(Constants.START_SEQUENCE)) {
+            return null;
+        }
+
+        Node start = parseArithmetic();
+        if (start == null || !accept(Constants.COMMA)) {
+            return null;
+        }
+
+        Node end = parseArithmetic();
+        if (end == null || !accept(Constants.END_SEQUENCE)) {
+            return null;
+        }
+
+        return new Node.Range(start, end);
+    }
+
+    private Node.MapCall parseMap() {
+        if (!accept(Constants.MAP) || !accept(Constants.OPENING_BRACKET)) {
+            return null;
+        }
+
+        Node source = parseSource();
+        if (source == null || !accept(Constants.COMMA)) {
+            return null;
+        }
+
+        Node.Lambda lambda = parseLambda(1);
+        return lambda != null ? new Node.MapCall(source, lambda) : null;
+    }
+
+    private Node.ReduceCall parseReduce() {
+        if (!accept(Constants.REDUCE) || !accept(Constants.OPENING_BRACKET)) {
+            return null;
+        }
+
+        Node source = parseSource();
+        if (source == null || !accept(Constants.COMMA)) {
+            return null;
+        }
+
+        Node base = parseArithmetic();
+        if (base == null || !accept(Constants.COMMA)) {
+            return null;
+        }
+
+        Node.Lambda lambda = parseLambda(2);
+        return lambda != null ? new Node.ReduceCall(source, base, lambda) : null;
+    }
+
+    private Node parseSource() {
+        if (is(Constants.START_SEQUENCE)) {
+            return parseRange();
+        } else if (is(Constants.MAP)) {
+            return parseMap();
+        }
+
+        Token name = next();
+        return name != null && name.type == Token.Type.IDENTIFIER ? variable(name.text) : null;
+    }
+
+    // Lambda is read from source text from the first token to the closing bracket of function, which is skipped.
+    // Arrow is not a token, so names and body are split by it like executors of functions split them.
+    private Node.Lambda parseLambda(int argumentsCount) {
+        int start = position;
+        int depth = 0;
+
+        while (!isEnd()) {
+            Token token = tokens.get(position);
+
+            if (token.type == Token.Type.KEYWORD
+                    || token.text.equals(Constants.COMMA)
+                    || token.text.equals(Constants.ASSIGN)
+                    || token.text.equals(Constants.START_SEQUENCE)
+                    || token.text.equals(Constants.END_SEQUENCE)) {
+                return null;
+            } else if (token.text.equals(Constants.OPENING_BRACKET)) {
+                depth++;
+            } else if (token.text.equals(Constants.CLOSING_BRACKET)) {
+                if (depth == 0) {
+                    break;
+                }
+                depth--;
+            }
+            position++;
+        }
+
+        if (position == start || !is(Constants.CLOSING_BRACKET)) {
+            return null;
+        }
+
+        String text = line.substring(tokens.get(start).start, tokens.get(position - 1).end);
+        position++;
+
+        String[] parts = text.replace("- >", "->").split("->");
+        if (parts.length != 2) {
+            return null;
+        }
+
+        String names = parts[0].trim();
+        List<String> arguments = Arrays.asList(argumentsCount == 1 ? new String[]{names} : names.split(" +"));
+        if (arguments.size() != argumentsCount) {
+            return null;
+        }
+        for (String name : arguments) {
+            if (!Validator.isNameAvailable(name)) {
+                return null;
+            }
+        }
+
+        Parser parser = new Parser(parts[1], slots);
+        parser.arguments = arguments;
+        Node body = parser.parseArithmetic();
+        return body != null && parser.isEnd() ? new Node.Lambda(arguments, body) : null;
+    }
+
+    // Arithmetic ends with the end of line, or comma, closing brace or bracket, which is not paired inside of it.
+    private Node parseArithmetic() {
+        Node result = parseTerm();
+
+        while (result != null && (is(Constants.PLUS) || is(Constants.MINUS))) {
+            Node.Operation.Operator operator = next().text.equals(Constants.PLUS)
+                    ? Node.Operation.Operator.ADD
+                    : Node.Operation.Operator.SUBTRACT;
+            Node right = parseTerm();
+            result = right != null ? new Node.Operation(operator, result, right) : null;
+        }
+
+        return result;
+    }
+
+    private Node parseTerm() {
+        Node result = parseFactor();
+
+        while (result != null && (is(Constants.MULTIPLY) || is(Constants.DIVIDE))) {
+            Node.Operation.Operator operator = next().text.equals(Constants.MULTIPLY)
+                    ? Node.Operation.Operator.MULTIPLY
+                    : Node.Operation.Operator.DIVIDE;
+            Node right = parseFactor();
+            result = right != null ? new Node.Operation(operator, result, right) : null;
+        }
+
+        return result;
+    }
+
+    // Power is right associative.
+    private Node parseFactor() {
+        Node result = parseOperand();
+
+        if (result != null && accept(Constants.POW)) {
+            Node right = parseFactor();
+            return right != null ? new Node.Operation(Node.Operation.Operator.POW, result, right) : null;
+        }
+
+        return result;
+    }
+
+    // Unary sign is applied to the next operand only, so `-x ^ 2` is `(-x) ^ 2` like in calculator.
+    private Node parseOperand() {
+        if (accept(Constants.OPENING_BRACKET)) {
+            Node result = parseArithmetic();
+            return result != null && accept(Constants.CLOSING_BRACKET) ? result : null;
+        }
+
+        boolean isNegative = false;
+        if (is(Constants.PLUS) || is(Constants.MINUS)) {
+            isNegative = next().text.equals(Constants.MINUS);
+        }
+
+        if (is(Constants.REDUCE)) {
+            Node.ReduceCall reduce = arguments == null ? parseReduce() : null;
+            return reduce != null && isNegative ? new Node.Negation(reduce) : reduce;
+        }
+
+        Token token = next();
+        if (token == null) {
+            return null;
+        } else if (token.isNumber()) {
+            return new Node.Number(isNegative ? -token.value : token.value);
+        } else if (token.type == Token.Type.IDENTIFIER && Validator.isNameAvailable(token.text)
+                && (arguments == null || arguments.contains(token.text))) {
+            Node.Variable variable = variable(token.text);
+            return isNegative ? new Node.Negation(variable) : variable;
+        } else {
+            return null;
+        }
+    }
+
+    // Variable of lambda is bound to its argument, other variables are bound to slots of program.
+    private Node.Variable variable(String name) {
+        int slot = arguments != null
+                ? arguments.indexOf(name)
+                : slots.computeIfAbsent(name, key -> slots.size());
+        return new Node.Variable(name, slot);
+    }
+
+    private boolean isEnd() {
+        return position >= tokens.size();
+    }
+
+    private boolean is(String text) {
+        return !isEnd() && tokens.get(position).text.equals(text);
+    }
+
+    private boolean accept(String text) {
+        if (is(text)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private Token next() {
+        return isEnd() ? null : tokens.get(position++);
+    }
+}
@@ -1,5 +1,10 @@
 package provider;
 
 public interface NumbersProvider {
-    String getNumberByName(String variableName);
+
+    // Returns slot of number variable or -1, if it is not defined.
+    // Slot of variable is not changed, when new value is assigned to it.
+    int getSlot(String variableName);
+
+    double getNumber(int slot);
 }
@@ -1,5 +1,7 @@
 package provider;
 
+import sequence.Sequence;
+
 public interface SequencesProvider {
-    double[] getSequenceByName(String sequenceName);
+    Sequence getSequenceByName(String sequenceName);
 }
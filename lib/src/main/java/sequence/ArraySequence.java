@@ -0,0 +1,33 @@
+package sequence;
+
+// Sequence, which elements are stored in array.
+// Sequence is immutable, after it is written, and could be shared without copying. Array is not copied either,
+// so it should not be changed after sequence is created.
+public final class ArraySequence extends WritableSequence {
+
+    private final double[] elements;
+
+    public ArraySequence(double[] elements) {
+        this.elements = elements;
+    }
+
+    @Override
+    public long length() {
+        return elements.length;
+    }
+
+    @Override
+    public double get(long index) {
+        return elements[(int) index];
+    }
+
+    @Override
+    public void read(long from, double[] buffer, int offset, int length) {
+        System.arraycopy(elements, (int) from, buffer, offset, length);
+    }
+
+    @Override
+    public void write(long from, double[] buffer, int offset, int length) {
+        System.arraycopy(buffer, offset, elements, (int) from, length);
+    }
+}
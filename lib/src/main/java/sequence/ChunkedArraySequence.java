@@ -0,0 +1,53 @@
+package sequence;
+
+// Sequence, which elements are stored in arrays of fixed size, so it could be longer than one Java array.
+public final class ChunkedArraySequence extends WritableSequence {
+
+    static final int BLOCK_SHIFT = 20;
+    static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    private final long length;
+    private final double[][] blocks;
+
+    public ChunkedArraySequence(long length) {
+        this.length = length;
+        this.blocks = new double[(int) ((length + BLOCK_MASK) >> BLOCK_SHIFT)][];
+
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = new double[(int) Math.min(BLOCK_SIZE, length - ((long) i << BLOCK_SHIFT))];
+        }
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public double get(long index) {
+        return blocks[(int) (index >> BLOCK_SHIFT)][(int) (index & BLOCK_MASK)];
+    }
+
+    @Override
+    public void read(long from, double[] buffer, int offset, int length) {
+        while (length > 0) {
+            int count = (int) Math.min(length, BLOCK_SIZE - (from & BLOCK_MASK));
+            System.arraycopy(blocks[(int) (from >> BLOCK_SHIFT)], (int) (from & BLOCK_MASK), buffer, offset, count);
+            from += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    @Override
+    public void write(long from, double[] buffer, int offset, int length) {
+        while (length > 0) {
+            int count = (int) Math.min(length, BLOCK_SIZE - (from & BLOCK_MASK));
+            System.arraycopy(buffer, offset, blocks[(int) (from >> BLOCK_SHIFT)], (int) (from & BLOCK_MASK), count);
+            from += count;
+            offset += count;
+            length -= count;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package sequence;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.concurrent.locks.StampedLock;
+
+// Sequence, which elements are stored outside of Java heap in direct buffers, so it doesn't make GC pauses longer.
+// Memory is freed by `release()`, after that sequence can't be read. Reads and writes hold the read lock,
+// so memory is never freed in the middle of reading.
+// If sequence is not released explicitly, memory is freed by GC together with buffers.
+public final class OffHeapSequence extends WritableSequence {
+
+    // Elements are stored in blocks, because capacity of one buffer is limited by Integer.MAX_VALUE bytes.
+    static final int BLOCK_SHIFT = 20;
+    static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    // `Unsafe.invokeCleaner()` frees memory of direct buffer immediately, it's null if it's not available.
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+            // memory would be freed by GC
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final long length;
+    private final ByteBuffer[] buffers;
+    private final DoubleBuffer[] blocks;
+
+    private final StampedLock lock = new StampedLock();
+    private boolean released = false;
+
+    OffHeapSequence(long length) {
+        this.length = length;
+        int blocksCount = (int) ((length + BLOCK_MASK) >> BLOCK_SHIFT);
+        this.buffers = new ByteBuffer[blocksCount];
+        this.blocks = new DoubleBuffer[blocksCount];
+
+        for (int i = 0; i < blocksCount; i++) {
+            int blockLength = (int) Math.min(BLOCK_SIZE, length - ((long) i << BLOCK_SHIFT));
+            buffers[i] = ByteBuffer.allocateDirect(blockLength * Double.BYTES).order(ByteOrder.nativeOrder());
+            blocks[i] = buffers[i].asDoubleBuffer();
+        }
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public double get(long index) {
+        long stamp = lock.readLock();
+        try {
+            checkNotReleased();
+            return blocks[(int) (index >> BLOCK_SHIFT)].get((int) (index & BLOCK_MASK));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void read(long from, double[] buffer, int offset, int length) {
+        long stamp = lock.readLock();
+        try {
+            checkNotReleased();
+            while (length > 0) {
+                int count = (int) Math.min(length, BLOCK_SIZE - (from & BLOCK_MASK));
+                blocks[(int) (from >> BLOCK_SHIFT)].get((int) (from & BLOCK_MASK), buffer, offset, count);
+                from += count;
+                offset += count;
+                length -= count;
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void write(long from, double[] buffer, int offset, int length) {
+        long stamp = lock.readLock();
+        try {
+            checkNotReleased();
+            while (length > 0) {
+                int count = (int) Math.min(length, BLOCK_SIZE - (from & BLOCK_MASK));
+                blocks[(int) (from >> BLOCK_SHIFT)].put((int) (from & BLOCK_MASK), buffer, offset, count);
+                from += count;
+                offset += count;
+                length -= count;
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Free memory of sequence, it waits for reads and writes in progress.
+    void release() {
+        long stamp = lock.writeLock();
+        try {
+            if (released) {
+                return;
+            }
+            released = true;
+            for (int i = 0; i < buffers.length; i++) {
+                free(buffers[i]);
+                buffers[i] = null;
+                blocks[i] = null;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    boolean isReleased() {
+        long stamp = lock.readLock();
+        try {
+            return released;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    long getSizeInBytes() {
+        return length * Double.BYTES;
+    }
+
+    private void checkNotReleased() {
+        if (released) {
+            throw new IllegalStateException("Sequence is released");
+        }
+    }
+
+    private static void free(ByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException ignored) {
+            // memory would be freed by GC
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package sequence;
+
+// Sequence of integers {start, end}, elements are computed on demand, so it takes the same memory for any length.
+// Bounds should not exceed MAX_BOUND by absolute value, so every element is exact double.
+public final class RangeSequence extends Sequence {
+
+    public static final long MAX_BOUND = 1L << 53;
+
+    public final long start;
+    public final long end;
+
+    public RangeSequence(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public long length() {
+        return end - start + 1;
+    }
+
+    @Override
+    public double get(long index) {
+        return start + index;
+    }
+
+    @Override
+    public void read(long from, double[] buffer, int offset, int length) {
+        long value = start + from;
+        for (int i = 0; i < length; i++) {
+            buffer[offset + i] = value + i;
+        }
+    }
+}
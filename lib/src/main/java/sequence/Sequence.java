@@ -0,0 +1,40 @@
+package sequence;
+
+// Sequence of numbers, which elements could be read one by one or by chunks.
+// Implementations decide how elements are stored, so executors should not expect to get the whole array.
+// Elements are indexed by long, so sequence could be longer than any Java array.
+public abstract class Sequence {
+
+    // Size of chunk, which is used by default for reading elements.
+    public static final int CHUNK_SIZE = 1024;
+
+    // Every element takes at least 5 chars in `toString()`: "0.0, ", so longer sequences can't be printed to String.
+    public static final long MAX_PRINTABLE_LENGTH = Integer.MAX_VALUE / 5;
+
+    public abstract long length();
+
+    public abstract double get(long index);
+
+    // Copy elements [from, from + length) to buffer[offset, offset + length).
+    public abstract void read(long from, double[] buffer, int offset, int length);
+
+    // The same format as Arrays.toString(double[]), elements are read by chunks.
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        double[] buffer = new double[(int) Math.min(CHUNK_SIZE, length())];
+
+        for (long from = 0; from < length(); from += buffer.length) {
+            int length = (int) Math.min(buffer.length, length() - from);
+            read(from, buffer, 0, length);
+            for (int i = 0; i < length; i++) {
+                if (from + i > 0) {
+                    builder.append(", ");
+                }
+                builder.append(buffer[i]);
+            }
+        }
+
+        return builder.append("]").toString();
+    }
+}
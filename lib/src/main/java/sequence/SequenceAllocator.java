@@ -0,0 +1,86 @@
+package sequence;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+// Allocates sequences for results of `map()`.
+// Sequences with at least `offHeapThreshold` elements are stored off-heap, smaller ones are stored in arrays.
+// Sequence, which is too long for one array, is stored in a few arrays.
+// Threshold could be changed with `-Dinterpreter.sequence.offheap.threshold=<elements>`.
+// Off-heap memory is freed by `release()`, sequences, which are not referenced anymore, are freed by GC before.
+public class SequenceAllocator {
+
+    public static final long DEFAULT_OFF_HEAP_THRESHOLD =
+            Long.getLong("interpreter.sequence.offheap.threshold", 1 << 24);
+
+    // Some VMs can't allocate array of exactly Integer.MAX_VALUE elements.
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private final long offHeapThreshold;
+    private final List<WeakReference<OffHeapSequence>> offHeapSequences = new ArrayList<>();
+
+    public SequenceAllocator() {
+        this(DEFAULT_OFF_HEAP_THRESHOLD);
+    }
+
+    public SequenceAllocator(long offHeapThreshold) {
+        if (offHeapThreshold < 0) {
+            throw new IllegalArgumentException("Off-heap threshold should not be negative");
+        }
+        this.offHeapThreshold = offHeapThreshold;
+    }
+
+    public WritableSequence allocate(long length) {
+        if (length < offHeapThreshold && length <= MAX_ARRAY_LENGTH) {
+            return new ArraySequence(new double[(int) length]);
+        } else if (length < offHeapThreshold) {
+            return new ChunkedArraySequence(length);
+        }
+
+        OffHeapSequence sequence = new OffHeapSequence(length);
+        synchronized (offHeapSequences) {
+            offHeapSequences.removeIf(reference -> reference.get() == null);
+            offHeapSequences.add(new WeakReference<>(sequence));
+        }
+        return sequence;
+    }
+
+    // Free memory of sequence, which is not used anymore, if it's stored off-heap.
+    public void release(Sequence sequence) {
+        if (sequence instanceof OffHeapSequence) {
+            ((OffHeapSequence) sequence).release();
+        }
+    }
+
+    // Free memory of all off-heap sequences allocated by this allocator, they can't be read after that.
+    public void release() {
+        synchronized (offHeapSequences) {
+            for (WeakReference<OffHeapSequence> reference : offHeapSequences) {
+                OffHeapSequence sequence = reference.get();
+                if (sequence != null) {
+                    sequence.release();
+                }
+            }
+            offHeapSequences.clear();
+        }
+    }
+
+    // Memory used by off-heap sequences, which are not released yet.
+    public long getOffHeapBytes() {
+        long bytes = 0;
+        synchronized (offHeapSequences) {
+            Iterator<WeakReference<OffHeapSequence>> iterator = offHeapSequences.iterator();
+            while (iterator.hasNext()) {
+                OffHeapSequence sequence = iterator.next().get();
+                if (sequence == null || sequence.isReleased()) {
+                    iterator.remove();
+                } else {
+                    bytes += sequence.getSizeInBytes();
+                }
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,9 @@
+package sequence;
+
+// Sequence, which elements are computed by executor.
+// Elements are written only by the executor, which allocated sequence, before sequence is shared with anyone else.
+public abstract class WritableSequence extends Sequence {
+
+    // Copy buffer[offset, offset + length) to elements [from, from + length).
+    public abstract void write(long from, double[] buffer, int offset, int length);
+}
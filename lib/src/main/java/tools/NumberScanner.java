@@ -0,0 +1,201 @@
+package tools;
+
+// Recognizes and parses number literals in one pass without exceptions.
+// Accepts the same strings as Double.parseDouble: whitespaces around, sign, `NaN`, `Infinity`,
+// decimal and hexadecimal forms with exponent and `f`/`d` suffixes.
+// Decimal literal with up to 15 significant digits and small exponent is computed exactly here,
+// because mantissa and power of ten are both exact doubles, so one multiplication or division is correctly rounded.
+// Other valid literals are passed to Double.parseDouble, which can't throw for them.
+public final class NumberScanner {
+
+    private static final int MAX_FAST_DIGITS = 15;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final String NAN = "NaN";
+    private static final String INFINITY = "Infinity";
+
+    private NumberScanner() {
+    }
+
+    public static boolean isNumber(CharSequence source, int start, int end) {
+        return scan(source, start, end, false) != null;
+    }
+
+    // Returns parsed value or null, if source[start, end) is not a number.
+    public static Double parse(CharSequence source, int start, int end) {
+        return scan(source, start, end, true);
+    }
+
+    private static Double scan(CharSequence source, int start, int end, boolean parse) {
+        while (start < end && source.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && source.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return null;
+        }
+
+        int i = start;
+        boolean negative = false;
+        char c = source.charAt(i);
+        if (c == '+' || c == '-') {
+            negative = c == '-';
+            i++;
+        }
+        if (i == end) {
+            return null;
+        }
+
+        c = source.charAt(i);
+        if (c == 'N') {
+            return matches(source, i, end, NAN) ? Double.NaN : null;
+        } else if (c == 'I') {
+            if (!matches(source, i, end, INFINITY)) {
+                return null;
+            }
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        } else if (c == '0' && i + 1 < end && (source.charAt(i + 1) == 'x' || source.charAt(i + 1) == 'X')) {
+            if (!isHexadecimal(source, i + 2, end)) {
+                return null;
+            }
+            return parse ? Double.parseDouble(source.subSequence(start, end).toString()) : 0.0;
+        } else {
+            return scanDecimal(source, start, i, end, negative, parse);
+        }
+    }
+
+    // digits [. digits] [(e|E) [sign] digits] [f|F|d|D], at least one digit before exponent.
+    private static Double scanDecimal(CharSequence source, int start, int i, int end, boolean negative, boolean parse) {
+        long mantissa = 0;
+        int significantDigits = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean isDot = false;
+
+        for (; i < end; i++) {
+            char c = source.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (isDot) {
+                    scale--;
+                }
+                if (significantDigits > 0 || c != '0') {
+                    significantDigits++;
+                    if (significantDigits <= MAX_FAST_DIGITS) {
+                        mantissa = mantissa * 10 + (c - '0');
+                    } else if (!isDot) {
+                        scale++;
+                    }
+                }
+            } else if (c == '.' && !isDot) {
+                isDot = true;
+            } else {
+                break;
+            }
+        }
+
+        if (digits == 0) {
+            return null;
+        }
+
+        int exponent = 0;
+        if (i < end && (source.charAt(i) == 'e' || source.charAt(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (source.charAt(i) == '+' || source.charAt(i) == '-')) {
+                negativeExponent = source.charAt(i) == '-';
+                i++;
+            }
+            int exponentDigits = 0;
+            for (; i < end && source.charAt(i) >= '0' && source.charAt(i) <= '9'; i++) {
+                // exponent is saturated, the value is already zero or infinity there
+                if (exponent < 100000) {
+                    exponent = exponent * 10 + (source.charAt(i) - '0');
+                }
+                exponentDigits++;
+            }
+            if (exponentDigits == 0) {
+                return null;
+            }
+            if (negativeExponent) {
+                exponent = -exponent;
+            }
+        }
+
+        if (i < end && isSuffix(source.charAt(i))) {
+            i++;
+        }
+        if (i != end) {
+            return null;
+        }
+        if (!parse) {
+            return 0.0;
+        }
+
+        double value;
+        int power = exponent + scale;
+        if (mantissa == 0) {
+            value = 0.0;
+        } else if (significantDigits <= MAX_FAST_DIGITS && power >= 0 && power < POWERS_OF_TEN.length) {
+            value = mantissa * POWERS_OF_TEN[power];
+        } else if (significantDigits <= MAX_FAST_DIGITS && power < 0 && -power < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[-power];
+        } else {
+            return Double.parseDouble(source.subSequence(start, end).toString());
+        }
+        return negative ? -value : value;
+    }
+
+    // hex digits [. hex digits] (p|P) [sign] digits [f|F|d|D], at least one hex digit.
+    private static boolean isHexadecimal(CharSequence source, int i, int end) {
+        int digits = 0;
+        boolean isDot = false;
+        for (; i < end; i++) {
+            char c = source.charAt(i);
+            if (Character.digit(c, 16) >= 0 && c < 128) {
+                digits++;
+            } else if (c == '.' && !isDot) {
+                isDot = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0 || i == end || (source.charAt(i) != 'p' && source.charAt(i) != 'P')) {
+            return false;
+        }
+        i++;
+        if (i < end && (source.charAt(i) == '+' || source.charAt(i) == '-')) {
+            i++;
+        }
+        int exponentDigits = 0;
+        for (; i < end && source.charAt(i) >= '0' && source.charAt(i) <= '9'; i++) {
+            exponentDigits++;
+        }
+        if (i < end && isSuffix(source.charAt(i))) {
+            i++;
+        }
+        return exponentDigits > 0 && i == end;
+    }
+
+    private static boolean isSuffix(char c) {
+        return c == 'f' || c == 'F' || c == 'd' || c == 'D';
+    }
+
+    private static boolean matches(CharSequence source, int start, int end, String word) {
+        if (end - start != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (source.charAt(start + i) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
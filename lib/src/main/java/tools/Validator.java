@@ -1,7 +1,8 @@
 package tools;
 
 import calculator.Calculator;
-import formatter.Formatter;
+import lexer.Lexer;
+import lexer.Token;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -9,15 +10,12 @@ import java.util.Map;
 public class Validator {
 
     public static boolean isNumber(String strNum) {
-        if (strNum == null) {
-            return false;
-        }
-        try {
-            Double.parseDouble(strNum);
-        } catch (NumberFormatException nfe) {
-            return false;
-        }
-        return true;
+        return strNum != null && NumberScanner.isNumber(strNum, 0, strNum.length());
+    }
+
+    // Returns value of number or null, if string is not a number.
+    public static Double parseNumber(String strNum) {
+        return strNum != null ? NumberScanner.parse(strNum, 0, strNum.length()) : null;
     }
 
     public static boolean isSign(String token) {
@@ -65,19 +63,12 @@ public class Validator {
             String expression,
             String[] existedVariables
     ) {
-        String[] expressionTokens = Formatter.getStringWithSpaces(expression).split(" +");
-
-        for (String token : expressionTokens) {
-            if (token.isEmpty()) {
-                continue;
-            }
-
-            if (!Validator.isSign(token)
-                    && !Validator.isNumber(token)
-                    && !isNameAvailable(existedVariables, token)) {
+        for (Token token : Lexer.tokenize(expression)) {
+            if (!token.isNumber()
+                    && !Validator.isSign(token.text)
+                    && !isNameAvailable(existedVariables, token.text)) {
                 return false;
             }
-
         }
 
         Map<String, String> validationMap = new HashMap<>();
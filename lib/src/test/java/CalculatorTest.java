@@ -1,8 +1,19 @@
 import calculator.Calculator;
+import calculator.Expression;
+import calculator.ExpressionCache;
+import calculator.ExpressionOptimizer;
+import calculator.LambdaCompiler;
+import calculator.RpnProgram;
+import lexer.Lexer;
+import lexer.Token;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import tools.Validator;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
 
 public class CalculatorTest {
 
@@ -136,4 +147,166 @@ public class CalculatorTest {
             Assertions.assertNull(calculator.calc(testDatum.expression, Collections.emptyMap()));
         }
     }
+
+    @Test
+    void testProgramEvaluation() {
+        Calculator calculator = new Calculator();
+        RpnProgram program = calculator.parse("-x ^ 2 + y * (3 - 1)");
+
+        Assertions.assertNotNull(program);
+        Assertions.assertArrayEquals(new String[]{"x", "y"}, program.variables);
+
+        double[] stack = new double[program.stackSize];
+        Assertions.assertEquals(25.0, program.evaluate(new double[]{3, 8}, stack));
+        Assertions.assertEquals(1.0, program.evaluate(new double[]{-1, 0}, stack));
+
+        Assertions.assertNull(calculator.parse("x y"));
+        Assertions.assertNull(calculator.parse("(x + 1"));
+    }
+
+    @Test
+    void testExpressionCache() {
+        Calculator calculator = new Calculator(new ExpressionCache(16));
+
+        calculator.calc("1 + 2", Collections.emptyMap());
+        calculator.calc("1 + 2", Collections.emptyMap());
+        calculator.calc("1 +", Collections.emptyMap());
+
+        ExpressionCache.Statistics statistics = calculator.getCacheStatistics();
+        Assertions.assertEquals(1L, statistics.hits);
+        Assertions.assertEquals(2L, statistics.misses);
+        Assertions.assertEquals(0L, statistics.evictions);
+        Assertions.assertEquals(1, statistics.size);
+
+        for (int i = 0; i < 1000; i++) {
+            calculator.calc(i + " * 2", Collections.emptyMap());
+        }
+
+        statistics = calculator.getCacheStatistics();
+        Assertions.assertTrue(statistics.size <= 16);
+        Assertions.assertEquals(1001L - statistics.size, statistics.evictions);
+    }
+
+    @Test
+    void testExpressionOptimizer() {
+        Calculator calculator = new Calculator();
+        String[] arguments = {"x"};
+
+        Expression expression = ExpressionOptimizer.optimize(calculator.compile("x * (2 + 3) ^ 2 / 1", arguments));
+        Assertions.assertTrue(expression instanceof Expression.Multiplication);
+        Assertions.assertTrue(((Expression.Multiplication) expression).left instanceof Expression.Argument);
+        Assertions.assertEquals(25.0, ((Expression.Constant) ((Expression.Multiplication) expression).right).value);
+
+        String[] expressions = {"x + 0", "x - 0", "0 - x", "x ^ 2", "-x ^ 2 * 1", "x ^ 0", "x - -x", "1 * x ^ 1"};
+        double[] values = {0.0, -0.0, 1.5, -3, Double.NaN, Double.POSITIVE_INFINITY, 1e200};
+
+        for (String text : expressions) {
+            Expression original = calculator.compile(text, arguments);
+            Expression optimized = ExpressionOptimizer.optimize(original);
+            for (double value : values) {
+                Assertions.assertEquals(
+                        Double.doubleToLongBits(original.evaluate(new double[]{value})),
+                        Double.doubleToLongBits(optimized.evaluate(new double[]{value}))
+                );
+            }
+        }
+    }
+
+    @Test
+    void testLambdaCompiler() {
+        Calculator calculator = new Calculator();
+        String[] unaryArguments = {"x"};
+        String[] binaryArguments = {"x", "y"};
+
+        String[] expressions = {"x", "-x + 1.5", "(x + 1) * (x - 2) / 3", "x ^ 3 - x ^ 0.5", "2 ^ -x"};
+        String[] binaryExpressions = {"x + y", "x * y - y / 2", "(x - y) ^ 2 / -y", "x ^ y + 1e3"};
+        double[] values = {0.0, -0.0, 1.5, -3, 7, Double.NaN, Double.POSITIVE_INFINITY, 1e200};
+
+        for (String text : expressions) {
+            Expression expression = calculator.compile(text, unaryArguments);
+            DoubleUnaryOperator tree = LambdaCompiler.compileUnary(expression, LambdaCompiler.Tier.TREE);
+            DoubleUnaryOperator bytecode = LambdaCompiler.compileUnary(expression, LambdaCompiler.Tier.BYTECODE);
+            Assertions.assertTrue(bytecode.getClass().isHidden());
+
+            for (double value : values) {
+                Assertions.assertEquals(
+                        Double.doubleToLongBits(tree.applyAsDouble(value)),
+                        Double.doubleToLongBits(bytecode.applyAsDouble(value))
+                );
+            }
+        }
+
+        for (String text : binaryExpressions) {
+            Expression expression = calculator.compile(text, binaryArguments);
+            DoubleBinaryOperator tree = LambdaCompiler.compileBinary(expression, LambdaCompiler.Tier.TREE);
+            DoubleBinaryOperator bytecode = LambdaCompiler.compileBinary(expression, LambdaCompiler.Tier.BYTECODE);
+            Assertions.assertTrue(bytecode.getClass().isHidden());
+
+            for (double x : values) {
+                for (double y : values) {
+                    Assertions.assertEquals(
+                            Double.doubleToLongBits(tree.applyAsDouble(x, y)),
+                            Double.doubleToLongBits(bytecode.applyAsDouble(x, y))
+                    );
+                }
+            }
+        }
+    }
+
+    @Test
+    void testBatchEvaluation() {
+        Calculator calculator = new Calculator();
+        RpnProgram program = calculator.parse("(x + 1) * (x - 2) / 3 - x ^ 3 + -x");
+
+        double[] input = new double[Calculator.CHUNK_SIZE * 3 + 7];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = i - 100.5;
+        }
+
+        double[] output = new double[input.length];
+        calculator.evaluate(program, input, output, 5, input.length);
+
+        double[] stack = new double[program.stackSize];
+        for (int i = 0; i < input.length; i++) {
+            double expected = i < 5 ? 0 : program.evaluate(new double[]{input[i]}, stack);
+            Assertions.assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(output[i]));
+        }
+    }
+
+    @Test
+    void testLexer() {
+        List<Token> tokens = Lexer.tokenize(" var x=map({1,2}, e -> -e ^ 2.5)\t");
+
+        String[] texts = new String[tokens.size()];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = tokens.get(i).text;
+        }
+        Assertions.assertArrayEquals(
+                new Object[]{"var", "x", "=", "map", "(", "{", "1", ",", "2", "}", ",", "e", "-", ">", "-", "e", "^", "2.5", ")"},
+                texts);
+
+        Assertions.assertEquals(Token.Type.KEYWORD, tokens.get(0).type);
+        Assertions.assertEquals(Token.Type.IDENTIFIER, tokens.get(1).type);
+        Assertions.assertEquals(Token.Type.SYMBOL, tokens.get(2).type);
+        Assertions.assertEquals(Token.Type.NUMBER, tokens.get(17).type);
+        Assertions.assertEquals(2.5, tokens.get(17).value);
+        Assertions.assertEquals(6, tokens.get(2).start);
+        Assertions.assertEquals(28, tokens.get(17).start);
+        Assertions.assertEquals(31, tokens.get(17).end);
+    }
+
+    @Test
+    void testNumberScanner() {
+        String[] numbers = {"0", "-0", "12", "1.5", ".5", "5.", "1e3", "1E-3", "2.5d", "1f", " 7 ", "-Infinity", "NaN",
+                "0x1.8p1", "123456789012345678", "1.7976931348623157E308", "4.9E-324", "0.1"};
+        for (String number : numbers) {
+            Assertions.assertEquals(Double.valueOf(number), Validator.parseNumber(number));
+        }
+
+        String[] notNumbers = {"", " ", "x", "e3", "1e", "1e+", ".", "1.2.3", "--1", "1x", "NaNd", "0x1", "Inf", "1_0"};
+        for (String token : notNumbers) {
+            Assertions.assertNull(Validator.parseNumber(token));
+            Assertions.assertFalse(Validator.isNumber(token));
+        }
+    }
 }
@@ -0,0 +1,43 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import sequence.ChunkedArraySequence;
+
+public class ChunkedArraySequenceTest {
+
+    @Test
+    void testBlocks() {
+        ChunkedArraySequence sequence = new ChunkedArraySequence(3_000_000L);
+        Assertions.assertEquals(3_000_000L, sequence.length());
+
+        double[] elements = getSequence(1, 2_000_000);
+        sequence.write(500_000, elements, 0, elements.length);
+
+        // Range is read from two blocks.
+        double[] buffer = new double[10];
+        sequence.read(1_048_570, buffer, 0, buffer.length);
+        Assertions.assertArrayEquals(getSequence(548_571, 548_580), buffer);
+        Assertions.assertEquals(0.0, sequence.get(2_500_000));
+        Assertions.assertEquals(2_000_000.0, sequence.get(2_499_999));
+    }
+
+    @Test
+    void testLastBlock() {
+        // Elements are written across the end of the first block into the last block, which is shorter.
+        ChunkedArraySequence sequence = new ChunkedArraySequence((1L << 20) + 3);
+        double[] elements = getSequence(1, 5);
+        sequence.write((1L << 20) - 2, elements, 0, elements.length);
+
+        Assertions.assertEquals(2.0, sequence.get((1L << 20) - 1));
+        Assertions.assertEquals(5.0, sequence.get((1L << 20) + 2));
+    }
+
+    private double[] getSequence(int from, int to) {
+        double[] out = new double[to - from + 1];
+
+        for (int i = from; i <= to; i++) {
+            out[i - from] = i;
+        }
+
+        return out;
+    }
+}
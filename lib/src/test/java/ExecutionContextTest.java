@@ -0,0 +1,57 @@
+import function.executor.ExecutionContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ExecutionContextTest {
+
+    @Test
+    void testCancel() {
+        ExecutionContext context = new ExecutionContext(0, 0);
+        Assertions.assertFalse(context.isStopped());
+        Assertions.assertEquals(ExecutionContext.Status.COMPLETED, context.getStatus());
+
+        context.cancel();
+        Assertions.assertTrue(context.isStopped());
+        Assertions.assertEquals(ExecutionContext.Status.CANCELLED, context.getStatus());
+    }
+
+    @Test
+    void testBudget() {
+        ExecutionContext context = new ExecutionContext(0, 100);
+        context.consume(100);
+        Assertions.assertFalse(context.isStopped());
+
+        context.consume(1);
+        Assertions.assertTrue(context.isStopped());
+        Assertions.assertEquals(ExecutionContext.Status.BUDGET_EXCEEDED, context.getStatus());
+        Assertions.assertEquals(101, context.getElementsCount());
+
+        // The first reason is kept.
+        context.cancel();
+        Assertions.assertEquals(ExecutionContext.Status.BUDGET_EXCEEDED, context.getStatus());
+    }
+
+    @Test
+    void testDeadline() {
+        long start = System.nanoTime();
+        ExecutionContext context = new ExecutionContext(1, 0);
+
+        // Deadline is checked by `isStopped()`, so context is stopped by the first check after it.
+        while (!context.isStopped()) {
+            Assertions.assertTrue(System.nanoTime() - start < 10_000_000_000L);
+        }
+        Assertions.assertTrue(System.nanoTime() - start >= 1_000_000);
+        Assertions.assertEquals(ExecutionContext.Status.TIMED_OUT, context.getStatus());
+    }
+
+    @Test
+    void testNegativeLimits() {
+        boolean isThrown = false;
+        try {
+            new ExecutionContext(-1, 0);
+        } catch (IllegalArgumentException e) {
+            isThrown = true;
+        }
+        Assertions.assertTrue(isThrown);
+    }
+}
@@ -0,0 +1,135 @@
+import calculator.Calculator;
+import function.executor.ForkJoinEngine;
+import function.executor.MapExecutor;
+import function.executor.ReduceExecutor;
+import function.executor.SplitPolicy;
+import interpreter.Interpreter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import provider.NumbersProvider;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ForkJoinEngineTest {
+
+    @Test
+    void testParallelism() {
+        String code = "out reduce(map({1, 200000}, x -> x / 3), 0, a b -> a + b)";
+        ForkJoinEngine engine = new ForkJoinEngine(2);
+
+        // Batches don't depend on parallelism, so result is the same with any engine.
+        Interpreter.Output interpreterOutput = new Interpreter(engine).interpret(code);
+        Assertions.assertEquals(new Interpreter().interpret(code).output, interpreterOutput.output);
+        Assertions.assertTrue(interpreterOutput.errors.isEmpty());
+        engine.shutdown();
+    }
+
+    @Test
+    void testNestedBatches() {
+        ForkJoinEngine engine = new ForkJoinEngine(2);
+
+        // Nested batches are run by the same threads, which wait for them.
+        AtomicInteger count = new AtomicInteger();
+        engine.forEachBatch(8, i -> engine.forEachBatch(100, j -> count.incrementAndGet()));
+        Assertions.assertEquals(800, count.get());
+        engine.shutdown();
+    }
+
+    @Test
+    void testBatchException() {
+        ForkJoinEngine engine = new ForkJoinEngine(2);
+        AtomicInteger started = new AtomicInteger();
+        AtomicInteger finished = new AtomicInteger();
+        CountDownLatch isStarted = new CountDownLatch(1);
+        CountDownLatch isFailed = new CountDownLatch(1);
+
+        // The first batch fails, when another one is started, and other batches finish after it has failed.
+        // Exception is thrown, when all started batches are finished.
+        boolean isThrown = false;
+        try {
+            engine.forEachBatch(64, i -> {
+                if (i == 0) {
+                    await(isStarted);
+                    isFailed.countDown();
+                    throw new IllegalStateException();
+                }
+                started.incrementAndGet();
+                isStarted.countDown();
+                await(isFailed);
+                finished.incrementAndGet();
+            });
+        } catch (IllegalStateException e) {
+            isThrown = true;
+        }
+
+        Assertions.assertTrue(isThrown);
+        Assertions.assertTrue(finished.get() > 0);
+        Assertions.assertEquals(started.get(), finished.get());
+        engine.shutdown();
+    }
+
+    @Test
+    void testShutdown() {
+        ForkJoinEngine engine = new ForkJoinEngine(2);
+        engine.shutdown();
+
+        boolean isRejected = false;
+        try {
+            engine.forEachBatch(1, i -> {
+            });
+        } catch (RejectedExecutionException e) {
+            isRejected = true;
+        }
+        Assertions.assertTrue(isRejected);
+
+        // Functions, which can't run batches, throw exception of engine instead of returning incomplete result.
+        MapExecutor mapExecutor = new MapExecutor(new Calculator(), name -> null, EMPTY_NUMBERS);
+        mapExecutor.setEngine(engine);
+        mapExecutor.setSplitPolicy(SplitPolicy.fixed(1000));
+        Assertions.assertTrue(mapExecutor.validate("({1, 100000}, x -> x + 1)"));
+        isRejected = false;
+        try {
+            mapExecutor.compute();
+        } catch (RejectedExecutionException e) {
+            isRejected = true;
+        }
+        Assertions.assertTrue(isRejected);
+
+        ReduceExecutor reduceExecutor = new ReduceExecutor(new Calculator(), name -> null, EMPTY_NUMBERS);
+        reduceExecutor.setEngine(engine);
+        reduceExecutor.setSplitPolicy(SplitPolicy.fixed(1000));
+        reduceExecutor.setClosedForm(false);
+        Assertions.assertTrue(reduceExecutor.validate("({1, 100000}, 0, a b -> a + b)"));
+        isRejected = false;
+        try {
+            reduceExecutor.compute();
+        } catch (RejectedExecutionException e) {
+            isRejected = true;
+        }
+        Assertions.assertTrue(isRejected);
+    }
+
+    // Latches are not expected to wait long, timeout only keeps broken engine from hanging the test.
+    private static void await(CountDownLatch latch) {
+        try {
+            Assertions.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final NumbersProvider EMPTY_NUMBERS = new NumbersProvider() {
+        @Override
+        public int getSlot(String variableName) {
+            return -1;
+        }
+
+        @Override
+        public double getNumber(int slot) {
+            return 0;
+        }
+    };
+}
@@ -1,8 +1,22 @@
+import calculator.Calculator;
+import function.executor.ExecutionContext;
+import function.executor.ExecutionEngine;
+import function.executor.ForkJoinEngine;
+import function.executor.MapExecutor;
+import function.executor.ReduceExecutor;
+import function.executor.SplitPolicy;
 import interpreter.Interpreter;
+import interpreter.SessionEngine;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import parser.Node;
+import parser.Parser;
+import provider.NumbersProvider;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 
 public class InterpreterTest {
 
@@ -391,6 +405,441 @@ public class InterpreterTest {
         Assertions.assertTrue(interpreterOutput.errors.isEmpty());
     }
 
+    @Test
+    void testNumberVariables() {
+        String code =
+                "var n = 0 - 3\n" +
+                        "var t = 0.00005\n" +
+                        "var k = t / -n\n" +
+                        "var n = n * 2\n" +
+                        "out -n\n" +
+                        "out k";
+        Interpreter.Output interpreterOutput = new Interpreter().interpret(code);
+        Assertions.assertEquals("6.0\n1.6666666666666667E-5", interpreterOutput.output);
+        Assertions.assertTrue(interpreterOutput.errors.isEmpty());
+    }
+
+    @Test
+    void testLargeRange() {
+        String code =
+                "var seq = {1, 10000000}\n" +
+                        "out reduce(seq, 0, x y -> x + y)\n" +
+                        "out reduce(map(seq, x -> x * 2), 0, x y -> x + y)";
+        Interpreter.Output interpreterOutput = new Interpreter().interpret(code);
+        Assertions.assertEquals("5.0000005E13\n1.0000001E14", interpreterOutput.output);
+        Assertions.assertTrue(interpreterOutput.errors.isEmpty());
+    }
+
+    @Test
+    void testMapDoesNotChangeVariable() {
+        String code =
+                "var seq = map({1, 3}, x -> x)\n" +
+                        "var doubled = map(seq, x -> x * 2)\n" +
+                        "var squared = map(map(seq, x -> x + 1), x -> x ^ 2)\n" +
+                        "out seq\n" +
+                        "out doubled\n" +
+                        "out squared";
+        Interpreter.Output interpreterOutput = new Interpreter().interpret(code);
+        Assertions.assertEquals("[1.0, 2.0, 3.0]\n[2.0, 4.0, 6.0]\n[4.0, 9.0, 16.0]", interpreterOutput.output);
+        Assertions.assertTrue(interpreterOutput.errors.isEmpty());
+    }
+
+    @Test
+    void testNestedMaps() {
+        String code =
+                "out map(map(map({1, 4}, x -> x * 2), x -> x - 1), y -> y ^ 2)\n" +
+                        "var seq = map(map(map({1, 100000}, x -> x / 4), y -> y * y), z -> z - 1)\n" +
+                        "out reduce(seq, 0, x y -> y)\n" +
+                        "out reduce(map(map(seq, x -> x + 1), x -> x ^ 0.5), 0, x y -> x + y)";
+        Interpreter.Output interpreterOutput = new Interpreter().interpret(code);
+        Assertions.assertEquals("[1.0, 9.0, 25.0, 49.0]\n6.24999999E8\n1.2500125E9", interpreterOutput.output);
+        Assertions.assertTrue(interpreterOutput.errors.isEmpty());
+    }
+
+    @Test
+    void testClosedFormReduce() {
+        String code =
+                "out reduce({1, 10000000000}, 0, a b -> a + b)\n" +
+                        "out reduce(map({1, 1000000}, x -> x * x), 0, a b -> a + b)\n" +
+                        "out reduce(map(map({-3, 3}, x -> x / 2), y -> y * y), 0, a b -> b + a)\n" +
+                        "out reduce(map({1, 5000}, x -> 0 - x), 1, a b -> a * b)\n" +
+                        "out reduce(map({1, 2001}, x -> x * 0 - 2), 1, a b -> a * b)\n" +
+                        "out reduce(map({1, 11}, x -> x * 0 - 2), 1, a b -> a * b)";
+        Interpreter.Output interpreterOutput = new Interpreter().interpret(code);
+        Assertions.assertEquals("5.0000000005E19\n3.3333383333350003E17\n7.0\nInfinity\n-Infinity\n-2048.0",
+                interpreterOutput.output);
+        Assertions.assertTrue(interpreterOutput.errors.isEmpty());
+    }
+
+    @Test
+    void testReduceAnalysis() {
+        String[] lambdas = {"a b -> a + b", "a b -> a - b", "a b -> 2 * b + a", "a b -> a / (1 + 1 / b)", "a b -> b - a", "a b -> b"};
+        String[] analyses = {"associative, parallel", "unknown, parallel", "unknown, parallel", "unknown, parallel",
+                "unknown, sequential", "unknown, sequential, last element only"};
+        double[] expected = {5000050001.0, 5000049999.0, 20000199999.0, 1 / 50001.5, 49999, 100000};
+        ForkJoinEngine engine = new ForkJoinEngine(4);
+
+        for (int i = 0; i < lambdas.length; i++) {
+            Double[] results = new Double[2];
+
+            for (int j = 0; j < results.length; j++) {
+                ReduceExecutor reduceExecutor = new ReduceExecutor(new Calculator(), name -> null, EMPTY_NUMBERS);
+                reduceExecutor.setEngine(engine);
+                reduceExecutor.setClosedForm(false);
+                reduceExecutor.setSplitPolicy(j == 0 ? SplitPolicy.fixed(1000) : SplitPolicy.fixed(1000000));
+                Assertions.assertTrue(reduceExecutor.validate("({1, 100000}, 1, " + lambdas[i] + ")"));
+                results[j] = reduceExecutor.compute();
+                Assertions.assertEquals(analyses[i], reduceExecutor.getAnalysis().toString());
+            }
+
+            // Batches give the same result as one sequential fold.
+            Assertions.assertTrue(Math.abs(results[0] - expected[i]) <= 1e-12 * Math.abs(expected[i]));
+            Assertions.assertTrue(Math.abs(results[1] - expected[i]) <= 1e-12 * Math.abs(expected[i]));
+        }
+
+        // Commutativity is analyzed apart from associativity.
+        String[] commutativeLambdas = {"a b -> (a + b) / 2", "a b -> a * b + 2 * (b + a)", "a b -> b * a", "a b -> a / b + b / a"};
+        String[] commutativeAnalyses = {"commutative, sequential", "commutative, sequential", "associative, parallel",
+                "commutative, sequential"};
+        for (int i = 0; i < commutativeLambdas.length; i++) {
+            ReduceExecutor reduceExecutor = new ReduceExecutor(new Calculator(), name -> null, EMPTY_NUMBERS);
+            Assertions.assertTrue(reduceExecutor.validate("({1, 10}, 1, " + commutativeLambdas[i] + ")"));
+            Assertions.assertEquals(commutativeAnalyses[i], reduceExecutor.getAnalysis().toString());
+            Assertions.assertTrue(reduceExecutor.getAnalysis().isCommutative);
+        }
+
+        engine.shutdown();
+    }
+
+    @Test
+    void testLongSequence() {
+        String code =
+                "var seq = {2147483000, 2147484000}\n" +
+                        "out reduce(map(seq, x -> x - 2147483000), 0, x y -> x + y)\n" +
+                        "out reduce(seq, 0, x y -> y)\n" +
+                        "out {1, 10000000000}";
+        Interpreter.Output interpreterOutput = new Interpreter().interpret(code);
+        Assertions.assertEquals("500500.0\n2.147484E9", interpreterOutput.output);
+        Assertions.assertEquals("Sequence is too long to print", interpreterOutput.errors);
+    }
+
+    @Test
+    void testExecutionContext() {
+        String code = "out 1\n" +
+                "var seq = map({1, 1000000}, x -> x * 2)\n" +
+                "out 2";
+
+        Interpreter.Output interpreterOutput = new Interpreter().interpret(code, new ExecutionContext(0, 1000));
+        Assertions.assertEquals("1.0", interpreterOutput.output);
+        Assertions.assertEquals(ExecutionContext.Status.BUDGET_EXCEEDED, interpreterOutput.status);
+        Assertions.assertFalse(interpreterOutput.errors.isEmpty());
+
+        ExecutionContext context = new ExecutionContext();
+        context.cancel();
+        interpreterOutput = new Interpreter().interpret(code, context);
+        Assertions.assertTrue(interpreterOutput.output.isEmpty());
+        Assertions.assertEquals(ExecutionContext.Status.CANCELLED, interpreterOutput.status);
+
+        interpreterOutput = new Interpreter().interpret(
+                "out reduce({1, 100000000}, 0, a b -> a + b / 3)", new ExecutionContext(1, 0));
+        Assertions.assertTrue(interpreterOutput.output.isEmpty());
+        Assertions.assertEquals(ExecutionContext.Status.TIMED_OUT, interpreterOutput.status);
+
+        // Runs, which are started after `stop()`, are cancelled.
+        Interpreter interpreter = new Interpreter();
+        interpreter.stop();
+        Assertions.assertEquals(ExecutionContext.Status.CANCELLED, interpreter.interpret(code).status);
+
+        context = new ExecutionContext();
+        interpreterOutput = new Interpreter().interpret(code, context);
+        Assertions.assertEquals(ExecutionContext.Status.COMPLETED, interpreterOutput.status);
+        Assertions.assertEquals(1_000_000, context.getElementsCount());
+    }
+
+    @Test
+    void testSessionEngine() {
+        ForkJoinEngine engine = new ForkJoinEngine(2);
+        SessionEngine sessionEngine = new SessionEngine(engine);
+        SessionEngine.Session[] sessions = new SessionEngine.Session[2000];
+
+        for (int i = 0; i < sessions.length; i++) {
+            sessions[i] = sessionEngine.submit("var a = " + i + "\nout reduce({1, 100}, a, x y -> x + y / 2)");
+        }
+
+        SessionEngine.Session heavy = sessionEngine.submit("out reduce({1, 1000000000000}, 0, a b -> a + b / 3)");
+
+        for (int i = 0; i < sessions.length; i++) {
+            Assertions.assertEquals(String.valueOf(1262.75 + i), sessions[i].getOutput().output);
+            Assertions.assertEquals(ExecutionContext.Status.COMPLETED, sessions[i].getStatus());
+            Assertions.assertTrue(sessions[i].getElementsCount() > 0);
+            Assertions.assertTrue(sessions[i].getRunNanos() > 0);
+        }
+
+        Assertions.assertEquals(ExecutionContext.Status.RUNNING, heavy.getStatus());
+        heavy.cancel();
+        Assertions.assertTrue(heavy.getOutput().output.isEmpty());
+        Assertions.assertEquals(ExecutionContext.Status.CANCELLED, heavy.getStatus());
+
+        Assertions.assertEquals(sessions.length + 1, sessionEngine.getCompletedCount());
+        Assertions.assertEquals(0, sessionEngine.getActiveCount());
+
+        sessionEngine.shutdown();
+        engine.shutdown();
+    }
+
+    @Test
+    void testSessionError() {
+        // Engine fails with Error, which is not RuntimeException.
+        ExecutionEngine engine = new ExecutionEngine() {
+            @Override
+            public int getParallelism() {
+                return 4;
+            }
+
+            @Override
+            public void forEachBatch(int count, IntConsumer action) {
+                throw new StackOverflowError();
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+        SessionEngine sessionEngine = new SessionEngine(engine);
+
+        SessionEngine.Session session = sessionEngine.submit("out reduce(map({1, 100000}, x -> x ^ 0.5), 0, x y -> x + y)");
+        Throwable error = session.getFuture().handle((output, e) -> e).join();
+
+        Assertions.assertTrue(error instanceof StackOverflowError);
+        Assertions.assertTrue(session.isDone());
+        Assertions.assertEquals(ExecutionContext.Status.FAILED, session.getStatus());
+        Assertions.assertTrue(session.getRunNanos() > 0);
+        Assertions.assertEquals(0, sessionEngine.getActiveCount());
+        Assertions.assertEquals(1, sessionEngine.getCompletedCount());
+
+        sessionEngine.shutdown();
+    }
+
+    @Test
+    void testSharedInterpreter() throws InterruptedException {
+        Interpreter interpreter = new Interpreter();
+        Thread[] threads = new Thread[8];
+        AtomicInteger failures = new AtomicInteger();
+
+        for (int i = 0; i < threads.length; i++) {
+            int index = i;
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 200; j++) {
+                    String code = "var n = " + index + "\n" +
+                            "var seq = map({1, 20000}, x -> x * 2)\n" +
+                            "out reduce(seq, n, a b -> a + b)";
+                    Interpreter.Output output = interpreter.interpret(code);
+                    if (!String.valueOf(400020000.0 + index).equals(output.output) || !output.errors.isEmpty()) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assertions.assertEquals(0, failures.get());
+
+        // Variables of previous runs are not visible.
+        Assertions.assertFalse(interpreter.interpret("out n").errors.isEmpty());
+    }
+
+    @Test
+    void testIndependentLines() {
+        String code = "var a = map({1, 200000}, x -> x * 2)\n" +
+                "var b = reduce({1, 200000}, 0, x y -> x + y * 3)\n" +
+                "print first\n" +
+                "var c = reduce(a, 0, x y -> x + y)\n" +
+                "out b - c\n" +
+                "var a = 1\n" +
+                "out reduce(map({1, 3}, x -> x * 2), 0, x y -> x + y)\n" +
+                "out a";
+        Interpreter.Output interpreterOutput = new Interpreter().interpret(code);
+        Assertions.assertEquals("first\n1.40000699994E11\n12.0\n1.0", interpreterOutput.output);
+        Assertions.assertTrue(interpreterOutput.errors.isEmpty());
+
+        // Lines after the failed one are not printed, even if they don't depend on it.
+        code = "var a = map({1, 200000}, x -> x * 2)\n" +
+                "var b = map({1, 10}, x -> x +)\n" +
+                "out reduce({1, 3}, 0, x y -> x + y)\n" +
+                "out reduce(a, 0, x y -> x + y)";
+        interpreterOutput = new Interpreter().interpret(code);
+        Assertions.assertTrue(interpreterOutput.output.isEmpty());
+        Assertions.assertFalse(interpreterOutput.errors.isEmpty());
+
+        // Engine runs lines one by one in order, so lines of the level after the failed one are not started.
+        ExecutionEngine engine = new ExecutionEngine() {
+            @Override
+            public int getParallelism() {
+                return 1;
+            }
+
+            @Override
+            public void forEachBatch(int count, IntConsumer action) {
+                for (int i = 0; i < count; i++) {
+                    action.accept(i);
+                }
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+        ExecutionContext context = new ExecutionContext();
+        code = "var b = map({1, 10}, x -> x +)\n" +
+                "out reduce({1, 100000}, 0, x y -> x + y / 3)";
+        interpreterOutput = new Interpreter(engine).interpret(code, context);
+        Assertions.assertTrue(interpreterOutput.output.isEmpty());
+        Assertions.assertFalse(interpreterOutput.errors.isEmpty());
+        Assertions.assertEquals(0, context.getElementsCount());
+    }
+
+    @Test
+    void testProgramParser() {
+        String code = "var n = 2 * (3 + -1)\n" +
+                "var s = {1, n}\n" +
+                "out map(map(s, x -> x + 1), y - > y * y)\n" +
+                "out reduce(s, 0, x y -> x + y) / n\n" +
+                "print total  is\n" +
+                "out s\n" +
+                "out n n";
+        Node.Program program = Parser.parse(code);
+        Assertions.assertEquals(7, program.statements.size());
+
+        Node.Assignment assignment = (Node.Assignment) program.statements.get(1);
+        Assertions.assertEquals("s", assignment.name);
+        Assertions.assertTrue(assignment.value instanceof Node.Range);
+
+        Node.MapCall map = (Node.MapCall) ((Node.Out) program.statements.get(2)).value;
+        Assertions.assertEquals(Collections.singletonList("y"), map.lambda.arguments);
+        Assertions.assertTrue(map.lambda.body instanceof Node.Operation);
+        Assertions.assertTrue(map.source instanceof Node.MapCall);
+
+        // Reduce is operand of division, its lambda reads its arguments.
+        Node.Operation division = (Node.Operation) ((Node.Out) program.statements.get(3)).value;
+        Assertions.assertEquals(Node.Operation.Operator.DIVIDE, division.operator);
+        Node.ReduceCall reduce = (Node.ReduceCall) division.left;
+        Assertions.assertEquals(Arrays.asList("x", "y"), reduce.lambda.arguments);
+        Assertions.assertTrue(reduce.source instanceof Node.Variable);
+        Assertions.assertEquals(0.0, ((Node.Number) reduce.base).value);
+
+        // Multiplication is computed before addition, unary minus is the part of number.
+        Node.Operation product = (Node.Operation) ((Node.Assignment) program.statements.get(0)).value;
+        Assertions.assertEquals(Node.Operation.Operator.MULTIPLY, product.operator);
+        Node.Operation sum = (Node.Operation) product.right;
+        Assertions.assertEquals(Node.Operation.Operator.ADD, sum.operator);
+        Assertions.assertEquals(-1.0, ((Node.Number) sum.right).value);
+
+        Assertions.assertEquals("total is", ((Node.Print) program.statements.get(4)).text);
+        Assertions.assertTrue(program.statements.get(6) instanceof Node.Unparsed);
+
+        Interpreter.Output interpreterOutput = new Interpreter().interpret(code);
+        Assertions.assertEquals("[4.0, 9.0, 16.0, 25.0]\n2.5\ntotal is\n[1.0, 2.0, 3.0, 4.0]", interpreterOutput.output);
+        Assertions.assertEquals("Cannot calc expression in out", interpreterOutput.errors);
+
+        // Power is right associative, unary sign is applied to operand before power, like in calculator.
+        interpreterOutput = new Interpreter().interpret("var a = 2\nout -a ^ 2 - 2 ^ 3 ^ 2 / a\nout (1 - 2) * -3");
+        Assertions.assertEquals("-252.0\n3.0", interpreterOutput.output);
+
+        // Arithmetic, which calculator doesn't accept, is not parsed.
+        String[] unparsed = {"out -(1 + 2)", "out 1 + + - 2", "out --1", "var m = map({1, 3}, x -> y)", "out (1 + 2"};
+        for (String line : unparsed) {
+            Assertions.assertTrue(Parser.parseLine(line) instanceof Node.Unparsed);
+            Assertions.assertFalse(new Interpreter().interpret(line).errors.isEmpty());
+        }
+
+        // Errors of statements are reported from the tree with the same messages as states report.
+        String[] lines = {"out q", "var a = q + 1\nout 1", "out {3, 1}", "var s = {1, 0.5}", "out reduce({1, 3}, q, x y -> x + y)",
+                "out map({3, 1}, x -> x)", "var m = map({1, 2 ^ 60}, x -> x)", "out mapping", "out {1, 10000000000}"};
+        String[] errors = {"Invalid expression in out", "Invalid symbol in expression", "Invalid expression in out",
+                "Sequence must contains only integers", "Invalid expression in out", "Cannot apply map",
+                "Sequence items must not exceed 2^53 by absolute value", "Cannot apply map", "Sequence is too long to print"};
+        for (int i = 0; i < lines.length; i++) {
+            Assertions.assertFalse(Parser.parseLine(lines[i].split("\n")[0]) instanceof Node.Unparsed);
+            interpreterOutput = new Interpreter().interpret(lines[i]);
+            Assertions.assertTrue(interpreterOutput.output.isEmpty());
+            Assertions.assertEquals(errors[i], interpreterOutput.errors);
+        }
+
+        // Results of `reduce()` are used as numbers, they are not put to the text of line.
+        interpreterOutput = new Interpreter().interpret("out -reduce({1, 3}, 0, x y -> y - 10)\n" +
+                "out reduce({1, 3}, 1, x y -> x / 0) + 1");
+        Assertions.assertEquals("17.0\nInfinity", interpreterOutput.output);
+        Assertions.assertTrue(interpreterOutput.errors.isEmpty());
+
+        // Function is computed once, and line is not read again by states after error.
+        String line = "out reduce({1, 100000}, 0, x y -> x + y / 3)";
+        ExecutionContext context = new ExecutionContext();
+        new Interpreter().interpret(line, context);
+        long elementsCount = context.getElementsCount();
+        Assertions.assertTrue(elementsCount > 0);
+
+        context = new ExecutionContext(0, elementsCount + elementsCount / 2);
+        interpreterOutput = new Interpreter().interpret(line + " + q", context);
+        Assertions.assertEquals(ExecutionContext.Status.COMPLETED, interpreterOutput.status);
+        Assertions.assertEquals("Invalid expression in out", interpreterOutput.errors);
+        Assertions.assertEquals(elementsCount, context.getElementsCount());
+    }
+
+    @Test
+    void testVariableSlots() {
+        String code = "var n = 2\n" +
+                "out n + m\n" +
+                "var m = n * 3\n" +
+                "var s = map({1, m}, x -> x * 2)\n" +
+                "out reduce(s, m, a b -> b - a) + n";
+        Node.Program program = Parser.parse(code);
+
+        // Slots are resolved once by parser, variables of lambdas are bound to their arguments.
+        Assertions.assertEquals(Arrays.asList("n", "m", "s"), program.variables);
+        Node.Operation sum = (Node.Operation) ((Node.Out) program.statements.get(1)).value;
+        Assertions.assertEquals(0, ((Node.Variable) sum.left).slot);
+        Assertions.assertEquals(1, ((Node.Variable) sum.right).slot);
+
+        Node.MapCall map = (Node.MapCall) ((Node.Assignment) program.statements.get(3)).value;
+        Assertions.assertEquals(1, ((Node.Variable) ((Node.Range) map.source).end).slot);
+        Assertions.assertEquals(0, ((Node.Variable) ((Node.Operation) map.lambda.body).left).slot);
+
+        Node.ReduceCall reduce = (Node.ReduceCall) ((Node.Operation) ((Node.Out) program.statements.get(4)).value).left;
+        Assertions.assertEquals(2, ((Node.Variable) reduce.source).slot);
+        Node.Operation difference = (Node.Operation) reduce.lambda.body;
+        Assertions.assertEquals(1, ((Node.Variable) difference.left).slot);
+        Assertions.assertEquals(0, ((Node.Variable) difference.right).slot);
+
+        // Slot of `m` is declared before it's defined, so it's not read until `var m`.
+        Interpreter.Output interpreterOutput = new Interpreter().interpret(code);
+        Assertions.assertEquals("2.0", interpreterOutput.output);
+        Assertions.assertEquals("Invalid expression in out", interpreterOutput.errors);
+
+        // Lines, which run in parallel, read slots of program from variables of previous levels.
+        interpreterOutput = new Interpreter().interpret("var a = 2\n" +
+                "var b = reduce({1, 3}, a, x y -> x + y)\n" +
+                "var c = reduce({1, 4}, a, x y -> x * y)\n" +
+                "out b + c + a");
+        Assertions.assertEquals("58.0", interpreterOutput.output);
+        Assertions.assertTrue(interpreterOutput.errors.isEmpty());
+    }
+
+    private static final NumbersProvider EMPTY_NUMBERS = new NumbersProvider() {
+        @Override
+        public int getSlot(String variableName) {
+            return -1;
+        }
+
+        @Override
+        public double getNumber(int slot) {
+            return 0;
+        }
+    };
+
     private double[] getSequence(int from, int to) {
         double[] out = new double[to - from + 1];
 
@@ -0,0 +1,76 @@
+import calculator.Calculator;
+import function.executor.MapExecutor;
+import provider.NumbersProvider;
+import sequence.SequenceAllocator;
+import sequence.WritableSequence;
+
+import java.util.Arrays;
+
+// Benchmark of scalar and vectorized modes of `map()`, it's not run by tests.
+// Run it with `java -cp <lib classes>:<test classes> MapBenchmark [length...]`,
+// by default sequences of 1M and 100M elements are mapped. Time is the best of a few rounds after warm up.
+public class MapBenchmark {
+
+    private static final String LAMBDA = "x -> x * 3 + 1 - x / 7";
+
+    private static final int WARM_UP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+
+    private static final NumbersProvider EMPTY_NUMBERS = new NumbersProvider() {
+        @Override
+        public int getSlot(String variableName) {
+            return -1;
+        }
+
+        @Override
+        public double getNumber(int slot) {
+            return 0;
+        }
+    };
+
+    public static void main(String[] args) {
+        long[] lengths = args.length == 0
+                ? new long[]{1_000_000, 100_000_000}
+                : Arrays.stream(args).mapToLong(Long::parseLong).toArray();
+
+        for (long length : lengths) {
+            double[] last = new double[2];
+
+            for (int mode = 0; mode < 2; mode++) {
+                boolean vectorized = mode == 1;
+                for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+                    map(length, vectorized, last, mode);
+                }
+
+                long best = Long.MAX_VALUE;
+                for (int i = 0; i < ROUNDS; i++) {
+                    best = Math.min(best, map(length, vectorized, last, mode));
+                }
+                System.out.printf("%d elements, %s: %.2f ms%n", length, vectorized ? "vectorized" : "scalar", best / 1e6);
+            }
+
+            if (Double.doubleToLongBits(last[0]) != Double.doubleToLongBits(last[1])) {
+                throw new IllegalStateException("Results of modes are different: " + last[0] + " and " + last[1]);
+            }
+        }
+    }
+
+    // Returns time of computing in nanoseconds, the last element of result is kept to compare modes.
+    private static long map(long length, boolean vectorized, double[] last, int mode) {
+        SequenceAllocator allocator = new SequenceAllocator();
+        MapExecutor executor = new MapExecutor(new Calculator(), name -> null, EMPTY_NUMBERS);
+        executor.setAllocator(allocator);
+        executor.setVectorized(vectorized);
+        if (!executor.validate("({1, " + length + "}, " + LAMBDA + ")")) {
+            throw new IllegalArgumentException(String.join("\n", executor.errors));
+        }
+
+        long start = System.nanoTime();
+        WritableSequence result = executor.compute();
+        long time = System.nanoTime() - start;
+
+        last[mode] = result.get(length - 1);
+        allocator.release();
+        return time;
+    }
+}
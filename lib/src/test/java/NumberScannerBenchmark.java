@@ -0,0 +1,73 @@
+import tools.Validator;
+
+import java.util.Random;
+
+// Benchmark of recognition of number literals in stream of mixed identifiers, operators and numbers,
+// it's not run by tests. Run it with `java -cp <lib classes>:<test classes> NumberScannerBenchmark`.
+// Old way is `Double.parseDouble` with catching NumberFormatException, then parsing number again,
+// it's compared with `Validator.parseNumber`, which recognizes and parses literal in one pass.
+public class NumberScannerBenchmark {
+
+    private static final String[] WORDS = {"x", "alpha", "sum", "el", "map", "+", "*", "(", ")", "-"};
+
+    private static final int TOKENS_COUNT = 4096;
+    private static final int PASSES = 200;
+    private static final int ROUNDS = 6;
+
+    public static void main(String[] args) {
+        Random random = new Random(3);
+        String[] tokens = new String[TOKENS_COUNT];
+
+        // Half of tokens are words and signs, half are integers and fractions.
+        for (int i = 0; i < tokens.length; i++) {
+            if (random.nextBoolean()) {
+                tokens[i] = WORDS[random.nextInt(WORDS.length)];
+            } else if (random.nextBoolean()) {
+                tokens[i] = Integer.toString(random.nextInt(1000));
+            } else {
+                tokens[i] = Double.toString(random.nextDouble() * 100);
+            }
+        }
+
+        // Sums are printed, so JIT doesn't remove loops.
+        double sum = 0;
+        double count = (double) PASSES * tokens.length;
+
+        // The first rounds are warm up, time of the last one is the most stable.
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int pass = 0; pass < PASSES; pass++) {
+                for (String token : tokens) {
+                    if (isNumberWithException(token)) {
+                        sum += Double.parseDouble(token);
+                    }
+                }
+            }
+
+            long middle = System.nanoTime();
+            for (int pass = 0; pass < PASSES; pass++) {
+                for (String token : tokens) {
+                    Double value = Validator.parseNumber(token);
+                    if (value != null) {
+                        sum += value;
+                    }
+                }
+            }
+
+            long end = System.nanoTime();
+            System.out.printf("round %d: parseDouble with exception %.1f ns/token, parseNumber %.1f ns/token%n",
+                    round, (middle - start) / count, (end - middle) / count);
+        }
+
+        System.out.println("sum: " + sum);
+    }
+
+    private static boolean isNumberWithException(String token) {
+        try {
+            Double.parseDouble(token);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,60 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import sequence.SequenceAllocator;
+import sequence.WritableSequence;
+
+public class SequenceAllocatorTest {
+
+    @Test
+    void testOffHeapSequence() {
+        SequenceAllocator allocator = new SequenceAllocator(1000);
+        Assertions.assertEquals(0, allocator.getOffHeapBytes());
+
+        WritableSequence small = allocator.allocate(999);
+        WritableSequence large = allocator.allocate(3_000_000);
+        Assertions.assertEquals(3_000_000L * Double.BYTES, allocator.getOffHeapBytes());
+
+        double[] elements = getSequence(1, 2_000_000);
+        large.write(500_000, elements, 0, elements.length);
+        small.write(0, elements, 0, 999);
+        Assertions.assertEquals(999.0, small.get(998));
+
+        double[] buffer = new double[10];
+        large.read(1_048_570, buffer, 0, buffer.length);
+        Assertions.assertArrayEquals(getSequence(548_571, 548_580), buffer);
+        Assertions.assertEquals(0.0, large.get(499_999));
+        Assertions.assertEquals(2_000_000.0, large.get(2_499_999));
+        allocator.release();
+    }
+
+    @Test
+    void testRelease() {
+        SequenceAllocator allocator = new SequenceAllocator(1000);
+        WritableSequence small = allocator.allocate(999);
+        WritableSequence large = allocator.allocate(3_000_000);
+        small.write(0, getSequence(1, 999), 0, 999);
+
+        // Small sequences are kept on heap, so they are not released.
+        allocator.release();
+        Assertions.assertEquals(0, allocator.getOffHeapBytes());
+        Assertions.assertEquals(999.0, small.get(998));
+
+        boolean isReleased = false;
+        try {
+            large.get(0);
+        } catch (IllegalStateException e) {
+            isReleased = true;
+        }
+        Assertions.assertTrue(isReleased);
+    }
+
+    private double[] getSequence(int from, int to) {
+        double[] out = new double[to - from + 1];
+
+        for (int i = from; i <= to; i++) {
+            out[i - from] = i;
+        }
+
+        return out;
+    }
+}
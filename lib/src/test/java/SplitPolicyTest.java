@@ -0,0 +1,61 @@
+import calculator.Calculator;
+import function.executor.ForkJoinEngine;
+import function.executor.MapExecutor;
+import function.executor.ReduceExecutor;
+import function.executor.SplitPolicy;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import provider.NumbersProvider;
+
+public class SplitPolicyTest {
+
+    @Test
+    void testPolicies() {
+        ForkJoinEngine engine = new ForkJoinEngine(4);
+        SplitPolicy[] policies = {SplitPolicy.adaptive(1_000_000), SplitPolicy.fixed(10000), SplitPolicy.fixed(1000000)};
+        Double[] results = new Double[policies.length];
+
+        for (int i = 0; i < policies.length; i++) {
+            MapExecutor mapExecutor = new MapExecutor(new Calculator(), name -> null, EMPTY_NUMBERS);
+            mapExecutor.setEngine(engine);
+            mapExecutor.setSplitPolicy(policies[i]);
+            Assertions.assertTrue(mapExecutor.validate("({1, 100000}, x -> x / 4)"));
+            Assertions.assertEquals(25000.0, mapExecutor.compute().get(99999));
+
+            ReduceExecutor reduceExecutor = new ReduceExecutor(new Calculator(), name -> null, EMPTY_NUMBERS);
+            reduceExecutor.setEngine(engine);
+            reduceExecutor.setSplitPolicy(policies[i]);
+            reduceExecutor.setClosedForm(false);
+            Assertions.assertTrue(reduceExecutor.validate("(map({1, 100000}, x -> x / 3), 0, a b -> a + b)"));
+            results[i] = reduceExecutor.compute();
+            Assertions.assertEquals(policies[i].threshold <= 100000, reduceExecutor.getLastSplit() != null);
+
+            // Short sequence is reduced sequentially, so it's not split.
+            Assertions.assertTrue(reduceExecutor.validate("({1, 100}, 0, a b -> a + b)"));
+            Assertions.assertEquals(Double.valueOf(5050), reduceExecutor.compute());
+            Assertions.assertNull(reduceExecutor.getLastSplit());
+
+            SplitPolicy.Split split = mapExecutor.getLastSplit();
+            Assertions.assertEquals(policies[i].isAdaptive(), !Double.isNaN(split.elementNanos));
+            Assertions.assertTrue(split.taskLength >= 1000);
+        }
+
+        Assertions.assertNull(new MapExecutor(new Calculator(), name -> null, EMPTY_NUMBERS).getLastSplit());
+
+        // Batches of reduce depend only on threshold, not on measured cost.
+        Assertions.assertEquals(results[0], results[1]);
+        engine.shutdown();
+    }
+
+    private static final NumbersProvider EMPTY_NUMBERS = new NumbersProvider() {
+        @Override
+        public int getSlot(String variableName) {
+            return -1;
+        }
+
+        @Override
+        public double getNumber(int slot) {
+            return 0;
+        }
+    };
+}